@@ -0,0 +1,48 @@
+package com.calendarevents;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+@State(Scope.Thread)
+public class DateBenchmark {
+
+    private long millis = 1577836800000L;
+    private String date = "2020-01-01T09:30:00.000Z";
+
+    @Benchmark
+    public String format() {
+        return Iso8601.format(millis++);
+    }
+
+    /**
+     * A SimpleDateFormat and a Calendar per call, as every date was formatted before.
+     */
+    @Benchmark
+    public String formatLegacy() {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis++);
+        return sdf.format(calendar.getTime());
+    }
+
+    @Benchmark
+    public long parse() throws ParseException {
+        return Iso8601.UTC.parse(date);
+    }
+
+    @Benchmark
+    public long parseLegacy() throws ParseException {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(sdf.parse(date));
+        return calendar.getTimeInMillis();
+    }
+}
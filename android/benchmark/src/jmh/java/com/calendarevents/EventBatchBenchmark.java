@@ -0,0 +1,105 @@
+package com.calendarevents;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentValues;
+import android.provider.CalendarContract;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Building the saveEvents batch of one event with {@code attendees}
+ * attendees, new and updated. Setup fails if a batch has more operations
+ * between two yield points than the calendar provider accepts.
+ */
+@State(Scope.Benchmark)
+public class EventBatchBenchmark {
+
+    // SQLiteContentProvider's MAX_OPERATIONS_PER_YIELD_POINT
+    private static final int PROVIDER_MAX_OPERATIONS = 500;
+
+    @Param({"10", "600", "2000"})
+    public int attendees;
+
+    private ArrayList<ContentValues> desired;
+    private ArrayList<ContentValues> existing;
+
+    @Setup
+    public void setUp() {
+        desired = new ArrayList<>(attendees);
+        existing = new ArrayList<>(attendees);
+        for (int i = 0; i < attendees; i++) {
+            ContentValues attendee = new ContentValues();
+            attendee.put(CalendarContract.Attendees.ATTENDEE_EMAIL, "attendee" + i + "@example.com");
+            attendee.put(CalendarContract.Attendees.ATTENDEE_NAME, "Attendee " + i);
+            attendee.put(CalendarContract.Attendees.ATTENDEE_RELATIONSHIP, Integer.toString(CalendarContract.Attendees.RELATIONSHIP_ATTENDEE));
+            desired.add(attendee);
+
+            // every other attendee was renamed, the rest are new
+            if (i % 2 == 0) {
+                ContentValues row = new ContentValues(attendee);
+                row.put(CalendarContract.Attendees._ID, (long) i);
+                row.put(CalendarContract.Attendees.ATTENDEE_NAME, "Old name " + i);
+                existing.add(row);
+            }
+        }
+
+        checkYieldPoints(added());
+        checkYieldPoints(updated());
+    }
+
+    /**
+     * A new event and the inserts of its attendees.
+     */
+    @Benchmark
+    public EventBatch added() {
+        EventBatch batch = new EventBatch();
+        int eventIndex = batch.nextIndex();
+        batch.add(ContentProviderOperation.newInsert(CalendarContract.Events.CONTENT_URI)
+                .withValue(CalendarContract.Events.TITLE, "Event"));
+        batch.addItem(0, eventIndex);
+        batch.addChildren(ChildRows.ATTENDEES, desired, eventIndex);
+        return batch;
+    }
+
+    /**
+     * An existing event and the attendee changes it needs.
+     */
+    @Benchmark
+    public EventBatch updated() {
+        EventBatch batch = new EventBatch();
+        ArrayList<ContentProviderOperation.Builder> operations = new ArrayList<>();
+        ChildRows.ATTENDEES.diff(1, existing, desired, operations);
+
+        int eventIndex = batch.nextIndex();
+        batch.add(ContentProviderOperation.newUpdate(CalendarContract.Events.CONTENT_URI)
+                .withValue(CalendarContract.Events.TITLE, "Event"));
+        batch.addItem(0, eventIndex);
+        for (ContentProviderOperation.Builder operation : operations) {
+            batch.add(operation);
+        }
+        return batch;
+    }
+
+    /**
+     * What SQLiteContentProvider.applyBatch checks before it applies anything.
+     */
+    private static void checkYieldPoints(EventBatch batch) {
+        List<ContentProviderOperation> operations = batch.operations();
+        int sinceYield = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            if (++sinceYield >= PROVIDER_MAX_OPERATIONS) {
+                throw new IllegalStateException("Operation " + i + " is " + sinceYield + " operations after a yield point");
+            }
+            if (i > 0 && operations.get(i).isYieldAllowed()) {
+                sinceYield = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.calendarevents;
+
+import android.database.MatrixCursor;
+import android.provider.CalendarContract;
+import android.util.Base64;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Serializing a whole result set with the module's own code, as findAllEvents
+ * does for each format. Every operation is {@code rows} rows, divide time and
+ * gc.alloc.rate.norm by it for per-row figures.
+ */
+@State(Scope.Benchmark)
+public class EventSerializationBenchmark {
+
+    private static final String[] PROJECTION = new String[]{
+            CalendarContract.Instances.EVENT_ID,
+            CalendarContract.Instances.TITLE,
+            CalendarContract.Instances.DESCRIPTION,
+            CalendarContract.Instances.BEGIN,
+            CalendarContract.Instances.END,
+            CalendarContract.Instances.ALL_DAY,
+            CalendarContract.Instances.EVENT_LOCATION,
+            CalendarContract.Instances.RRULE,
+            CalendarContract.Instances.CALENDAR_ID,
+            CalendarContract.Instances.AVAILABILITY,
+            CalendarContract.Instances.HAS_ALARM,
+            CalendarContract.Instances.ORIGINAL_ID,
+            CalendarContract.Instances.DURATION,
+    };
+
+    // recurring series share a handful of rules
+    private static final String[] RULES = new String[]{
+            "FREQ=WEEKLY;BYDAY=MO,WE,FR;INTERVAL=1;UNTIL=20301231T235959Z",
+            "FREQ=DAILY;INTERVAL=1;COUNT=30",
+            "FREQ=MONTHLY;BYSETPOS=-1;BYDAY=FR;INTERVAL=1",
+            "FREQ=YEARLY;INTERVAL=1",
+    };
+
+    @Param({"100", "10000", "100000"})
+    public int rows;
+
+    private MatrixCursor cursor;
+    private EventColumns columns;
+    private final EventRelations relations = new EventRelations();
+
+    @Setup
+    public void setUp() {
+        cursor = cursor(rows);
+        columns = EventColumns.of(cursor, EventFields.ALL);
+        for (int i = 1; i <= 3; i++) {
+            WritableNativeMap calendar = new WritableNativeMap();
+            calendar.putString("id", Integer.toString(i));
+            calendar.putString("title", "Calendar " + i);
+            calendar.putString("color", "#FFFFFF");
+            calendar.putBoolean("allowsModifications", true);
+            relations.putCalendar(Integer.toString(i), calendar);
+        }
+    }
+
+    @Benchmark
+    public WritableNativeArray objects() {
+        WritableNativeArray results = new WritableNativeArray();
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            WritableNativeMap event = new WritableNativeMap();
+            EventSerializer.write(cursor, relations, columns, new EventWriter.MapWriter(event));
+            results.pushMap(event);
+        }
+        return results;
+    }
+
+    @Benchmark
+    public WritableNativeMap columnar() {
+        ColumnarEvents results = new ColumnarEvents();
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            results.startRow();
+            EventSerializer.write(cursor, relations, columns, results);
+        }
+        return results.result();
+    }
+
+    /**
+     * Including the base64 encoding the binary format needs to cross the bridge.
+     */
+    @Benchmark
+    public String binary() {
+        BinaryEvents results = new BinaryEvents();
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            results.startRow();
+            EventSerializer.write(cursor, relations, columns, results);
+        }
+        return Base64.encodeToString(results.result(), Base64.NO_WRAP);
+    }
+
+    /**
+     * What a ProviderSnapshot spends per event row.
+     */
+    @Benchmark
+    public long hashRows() {
+        long hash = 0;
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            hash += ContentHash.row(cursor, 1);
+        }
+        return hash;
+    }
+
+    /**
+     * One event every 30 minutes from 2020-01-01, a quarter of them recurring.
+     */
+    private static MatrixCursor cursor(int rows) {
+        Random random = new Random(rows);
+        MatrixCursor cursor = new MatrixCursor(PROJECTION, rows);
+        long begin = 1577836800000L;
+
+        for (int i = 0; i < rows; i++) {
+            boolean recurring = i % 4 == 0;
+            cursor.addRow(new Object[]{
+                    Integer.toString(i / 4 + 1),
+                    "Event " + i,
+                    random.nextBoolean() ? "Synthetic description " + i : null,
+                    begin,
+                    begin + 3600000L,
+                    i % 20 == 0 ? 1 : 0,
+                    random.nextBoolean() ? "Room " + random.nextInt(50) : null,
+                    recurring ? RULES[random.nextInt(RULES.length)] : null,
+                    Integer.toString(1 + random.nextInt(3)),
+                    random.nextInt(3),
+                    random.nextInt(2),
+                    null,
+                    recurring ? "PT1H" : null,
+            });
+            begin += 1800000L;
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,40 @@
+package com.calendarevents;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class RecurrenceRuleBenchmark {
+
+    private static final String RULE = "FREQ=WEEKLY;BYDAY=MO,WE,FR;WKST=MO;INTERVAL=2;UNTIL=20301231T235959Z";
+    private static final String[] DAYS = new String[]{"MO", "WE", "FR"};
+
+    // more distinct rules than are interned, so every parse misses
+    private final String[] distinctRules = new String[1024];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < distinctRules.length; i++) {
+            distinctRules[i] = "FREQ=DAILY;INTERVAL=" + (i + 1) + ";COUNT=" + (i + 10);
+        }
+    }
+
+    @Benchmark
+    public RecurrenceRule parseInterned() {
+        return RecurrenceRule.parse(RULE);
+    }
+
+    @Benchmark
+    public RecurrenceRule parseMiss() {
+        next = (next + 1) & (distinctRules.length - 1);
+        return RecurrenceRule.parse(distinctRules[next]);
+    }
+
+    @Benchmark
+    public String create() {
+        return new RecurrenceRule("weekly", 2, 0, 1924991999000L, DAYS, 0, "MO").toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.calendarevents;
+
+import android.provider.CalendarContract;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+
+/**
+ * The selection strings CalendarEvents builds, and the ones it used to.
+ */
+@State(Scope.Benchmark)
+public class SelectionBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int calendars;
+
+    private String[] calendarIds;
+    private String availabilities;
+
+    @Setup
+    public void setUp() {
+        calendarIds = new String[calendars];
+        StringBuilder allowed = new StringBuilder();
+        for (int i = 0; i < calendars; i++) {
+            calendarIds[i] = Integer.toString(i + 1);
+            allowed.append(i > 0 ? "," : "").append(i % 3);
+        }
+        availabilities = allowed.toString();
+    }
+
+    /**
+     * The calendar filter findEvents used to build, one OR term per calendar.
+     */
+    @Benchmark
+    public String calendarFilter() {
+        String calendarQuery = "AND (";
+        for (int i = 0; i < calendarIds.length; i++) {
+            calendarQuery += CalendarContract.Instances.CALENDAR_ID + " = " + calendarIds[i];
+            if (i != calendarIds.length - 1) {
+                calendarQuery += " OR ";
+            }
+        }
+        calendarQuery += ")";
+        return calendarQuery;
+    }
+
+    /**
+     * The whole selection of findEvents, calendars bound as arguments.
+     */
+    @Benchmark
+    public void instanceSelection(Blackhole blackhole) {
+        Selection selection = new Selection()
+                .where(CalendarContract.Instances.VISIBLE + " = 1")
+                .where(CalendarContract.Instances.STATUS + " IS NOT " + CalendarContract.Events.STATUS_CANCELED)
+                .atLeast(CalendarContract.Instances.BEGIN, 1700000000000L)
+                .atMost(CalendarContract.Instances.END, 1702592000000L)
+                .in(CalendarContract.Instances.CALENDAR_ID, calendarIds);
+        blackhole.consume(selection.sql());
+        blackhole.consume(selection.args());
+    }
+
+    /**
+     * calendarAllowedAvailabilitiesFromDBString, with a list in place of the bridge array.
+     */
+    @Benchmark
+    public ArrayList<String> allowedAvailabilities() {
+        ArrayList<String> availabilitiesStrings = new ArrayList<>();
+        for (String availabilityId : availabilities.split(",")) {
+            switch (Integer.parseInt(availabilityId)) {
+                case CalendarContract.Events.AVAILABILITY_BUSY:
+                    availabilitiesStrings.add("busy");
+                    break;
+                case CalendarContract.Events.AVAILABILITY_FREE:
+                    availabilitiesStrings.add("free");
+                    break;
+                case CalendarContract.Events.AVAILABILITY_TENTATIVE:
+                    availabilitiesStrings.add("tentative");
+                    break;
+            }
+        }
+        return availabilitiesStrings;
+    }
+}
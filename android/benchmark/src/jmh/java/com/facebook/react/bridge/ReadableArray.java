@@ -0,0 +1,15 @@
+package com.facebook.react.bridge;
+
+import java.util.ArrayList;
+
+/**
+ * The part of React Native's ReadableArray the benchmarked classes use.
+ */
+public interface ReadableArray {
+
+    int size();
+
+    String getString(int index);
+
+    ArrayList<Object> toArrayList();
+}
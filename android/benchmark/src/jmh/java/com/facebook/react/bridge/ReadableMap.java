@@ -0,0 +1,19 @@
+package com.facebook.react.bridge;
+
+import java.util.HashMap;
+
+/**
+ * The part of React Native's ReadableMap the benchmarked classes use.
+ */
+public interface ReadableMap {
+
+    boolean hasKey(String name);
+
+    boolean isNull(String name);
+
+    String getString(String name);
+
+    ReadableArray getArray(String name);
+
+    HashMap<String, Object> toHashMap();
+}
@@ -0,0 +1,68 @@
+package com.facebook.react.bridge;
+
+import java.util.ArrayList;
+
+/**
+ * Stands in for React Native's WritableNativeArray, see {@link WritableNativeMap}.
+ */
+public class WritableNativeArray implements ReadableArray {
+
+    private final ArrayList<Object> values = new ArrayList<>();
+
+    public void pushString(String value) {
+        values.add(value);
+    }
+
+    public void pushDouble(double value) {
+        values.add(value);
+    }
+
+    public void pushInt(int value) {
+        values.add((double) value);
+    }
+
+    public void pushBoolean(boolean value) {
+        values.add(value);
+    }
+
+    public void pushNull() {
+        values.add(null);
+    }
+
+    public void pushArray(WritableNativeArray value) {
+        values.add(value);
+    }
+
+    public void pushMap(WritableNativeMap value) {
+        values.add(value);
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public String getString(int index) {
+        return (String) values.get(index);
+    }
+
+    @Override
+    public ArrayList<Object> toArrayList() {
+        ArrayList<Object> list = new ArrayList<>(values.size());
+        for (Object value : values) {
+            list.add(unwrap(value));
+        }
+        return list;
+    }
+
+    static Object unwrap(Object value) {
+        if (value instanceof WritableNativeMap) {
+            return ((WritableNativeMap) value).toHashMap();
+        }
+        if (value instanceof WritableNativeArray) {
+            return ((WritableNativeArray) value).toArrayList();
+        }
+        return value;
+    }
+}
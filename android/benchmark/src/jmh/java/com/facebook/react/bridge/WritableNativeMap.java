@@ -0,0 +1,75 @@
+package com.facebook.react.bridge;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stands in for React Native's WritableNativeMap, which needs the JNI
+ * library: a plain map, so serialization is measured without the bridge.
+ */
+public class WritableNativeMap implements ReadableMap {
+
+    private final LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+
+    public void putString(String key, String value) {
+        values.put(key, value);
+    }
+
+    public void putDouble(String key, double value) {
+        values.put(key, value);
+    }
+
+    public void putInt(String key, int value) {
+        values.put(key, (double) value);
+    }
+
+    public void putBoolean(String key, boolean value) {
+        values.put(key, value);
+    }
+
+    public void putNull(String key) {
+        values.put(key, null);
+    }
+
+    public void putArray(String key, WritableNativeArray value) {
+        values.put(key, value);
+    }
+
+    public void putMap(String key, WritableNativeMap value) {
+        values.put(key, value);
+    }
+
+    public void merge(ReadableMap source) {
+        values.putAll(((WritableNativeMap) source).values);
+    }
+
+    @Override
+    public boolean hasKey(String name) {
+        return values.containsKey(name);
+    }
+
+    @Override
+    public boolean isNull(String name) {
+        return values.get(name) == null;
+    }
+
+    @Override
+    public String getString(String name) {
+        return (String) values.get(name);
+    }
+
+    @Override
+    public ReadableArray getArray(String name) {
+        return (ReadableArray) values.get(name);
+    }
+
+    @Override
+    public HashMap<String, Object> toHashMap() {
+        HashMap<String, Object> map = new HashMap<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            map.put(entry.getKey(), WritableNativeArray.unwrap(entry.getValue()));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,283 @@
+package com.calendarevents;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the `format: 'binary'` result: every event of a query encoded into
+ * one byte array. The bridge only carries strings, so the module sends it
+ * base64 encoded and JS decodes that into an ArrayBuffer; what it saves over
+ * the `objects` format is the per-event maps on both sides and the repeated
+ * strings, not the copy.
+ *
+ * All numbers are little endian. Strings, including field names and map
+ * keys, are stored once in a table and referenced by index.
+ *
+ * <pre>
+ * header      u32 magic 'RNCE', u16 version, u16 column count C,
+ *             u32 event count N, u32 string count S
+ * strings     S x (u32 UTF-8 byte length, bytes)
+ * columns     C x u32 string index, the field names
+ * calendars   a map value, calendar ID to calendar
+ * events      N x (u16 field count F, F x (u16 column index, value))
+ *
+ * value       u8 tag, then
+ *             0 null, 1 false, 2 true
+ *             3 f64
+ *             4 string    u32 string index
+ *             5 array     u32 length, values
+ *             6 map       u32 size, size x (u32 key string index, value)
+ * </pre>
+ *
+ * Dates are epoch milliseconds and events carry a `calendarId` instead of
+ * the calendar, like the columnar format.
+ */
+final class BinaryEvents implements EventWriter {
+
+    static final int MAGIC = 0x45434E52;
+    static final int VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte NUMBER = 3;
+    private static final byte STRING = 4;
+    private static final byte ARRAY = 5;
+    private static final byte MAP = 6;
+
+    private final HashMap<String, Integer> stringIndexes = new HashMap<>();
+    private final ArrayList<byte[]> strings = new ArrayList<>();
+    private int stringBytes;
+    private final LinkedHashMap<String, Integer> columns = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Object> calendars = new LinkedHashMap<>();
+
+    private byte[] events = new byte[64 * 1024];
+    private int size;
+    private int count;
+    // where the field count of the current event goes
+    private int rowStart = -1;
+    private int rowFields;
+
+    /**
+     * Starts the next event, the puts that follow are its fields.
+     */
+    void startRow() {
+        endRow();
+        rowStart = size;
+        putShort(0);
+        rowFields = 0;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Only call once.
+     * @return the whole result
+     */
+    byte[] result() {
+        endRow();
+
+        byte[] calendarBytes = encode(calendars);
+        byte[] rows = events;
+        int rowBytes = size;
+
+        events = new byte[16 + 4 * strings.size() + stringBytes + 4 * columns.size() + calendarBytes.length + rowBytes];
+        size = 0;
+        putInt(MAGIC);
+        putShort(VERSION);
+        putShort(columns.size());
+        putInt(count);
+        putInt(strings.size());
+        for (byte[] string : strings) {
+            putInt(string.length);
+            putBytes(string, string.length);
+        }
+        for (String column : columns.keySet()) {
+            putInt(stringIndexes.get(column));
+        }
+        putBytes(calendarBytes, calendarBytes.length);
+        putBytes(rows, rowBytes);
+        return events;
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        field(key);
+        writeString(value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        field(key);
+        putByte(NUMBER);
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        field(key);
+        putByte(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void putNull(String key) {
+        field(key);
+        putByte(NULL);
+    }
+
+    @Override
+    public void putArray(String key, WritableNativeArray value) {
+        field(key);
+        writeValue(value.toArrayList());
+    }
+
+    @Override
+    public void putMap(String key, WritableNativeMap value) {
+        field(key);
+        writeValue(value.toHashMap());
+    }
+
+    @Override
+    public void putCalendar(String calendarID, EventRelations relations) {
+        putString("calendarId", calendarID);
+        if (calendarID != null && !calendars.containsKey(calendarID)) {
+            WritableNativeMap calendar = relations.calendar(calendarID);
+            calendars.put(calendarID, calendar != null ? calendar.toHashMap() : null);
+        }
+    }
+
+    private void endRow() {
+        if (rowStart != -1) {
+            events[rowStart] = (byte) rowFields;
+            events[rowStart + 1] = (byte) (rowFields >>> 8);
+            rowStart = -1;
+        }
+    }
+
+    private void field(String key) {
+        Integer column = columns.get(key);
+        if (column == null) {
+            column = columns.size();
+            columns.put(key, column);
+            string(key);
+        }
+        putShort(column);
+        rowFields++;
+    }
+
+    private byte[] encode(Object value) {
+        byte[] saved = events;
+        int savedSize = size;
+        events = new byte[1024];
+        size = 0;
+        writeValue(value);
+        byte[] bytes = Arrays.copyOf(events, size);
+        events = saved;
+        size = savedSize;
+        return bytes;
+    }
+
+    /**
+     * Writes what {@code toArrayList()} and {@code toHashMap()} return.
+     */
+    private void writeValue(Object value) {
+        if (value == null) {
+            putByte(NULL);
+        } else if (value instanceof Boolean) {
+            putByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Number) {
+            putByte(NUMBER);
+            putLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            putByte(ARRAY);
+            putInt(list.size());
+            for (Object item : list) {
+                writeValue(item);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            putByte(MAP);
+            putInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                putInt(string(String.valueOf(entry.getKey())));
+                writeValue(entry.getValue());
+            }
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            putByte(NULL);
+            return;
+        }
+        int index = string(value);
+        putByte(STRING);
+        putInt(index);
+    }
+
+    private int string(String value) {
+        Integer index = stringIndexes.get(value);
+        if (index == null) {
+            byte[] bytes = value.getBytes(UTF_8);
+            index = strings.size();
+            strings.add(bytes);
+            stringBytes += bytes.length;
+            stringIndexes.put(value, index);
+        }
+        return index;
+    }
+
+    private void putByte(byte value) {
+        reserve(1);
+        events[size++] = value;
+    }
+
+    private void putShort(int value) {
+        reserve(2);
+        events[size++] = (byte) value;
+        events[size++] = (byte) (value >>> 8);
+    }
+
+    private void putInt(int value) {
+        reserve(4);
+        events[size++] = (byte) value;
+        events[size++] = (byte) (value >>> 8);
+        events[size++] = (byte) (value >>> 16);
+        events[size++] = (byte) (value >>> 24);
+    }
+
+    private void putLong(long value) {
+        putInt((int) value);
+        putInt((int) (value >>> 32));
+    }
+
+    private void putBytes(byte[] bytes, int length) {
+        reserve(length);
+        System.arraycopy(bytes, 0, events, size, length);
+        size += length;
+    }
+
+    private void reserve(int bytes) {
+        if (events.length - size < bytes) {
+            events = Arrays.copyOf(events, Math.max(events.length * 2, size + bytes));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.calendarevents;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.provider.CalendarContract;
+import android.util.Log;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps every serialized calendar row in memory. The whole table is loaded in
+ * one query the first time it is needed.
+ *
+ * The provider notifies every change, events included, on its root URI, so a
+ * notification only marks the cache stale. The next lookup compares a
+ * fingerprint of the table, which serializes nothing, and only reloads the
+ * calendars if it differs.
+ */
+final class CalendarCache {
+
+    interface Loader {
+        LinkedHashMap<String, WritableNativeMap> load();
+
+        /**
+         * @return a hash of the rows {@link #load} reads
+         */
+        long fingerprint();
+    }
+
+    private final ContentResolver resolver;
+    private final Loader loader;
+    private final ContentObserver observer = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange) {
+            stale = true;
+        }
+    };
+
+    private LinkedHashMap<String, WritableNativeMap> calendars;
+    private long fingerprint;
+    // IDs looked up since the last load that are not calendars
+    private final HashSet<String> absent = new HashSet<>();
+    private volatile boolean stale;
+    private boolean registered;
+    private long hits;
+    private long misses;
+    private long validations;
+    private long invalidations;
+
+    CalendarCache(ContentResolver resolver, Loader loader) {
+        this.resolver = resolver;
+        this.loader = loader;
+    }
+
+    synchronized WritableNativeMap get(String calendarID) {
+        validate();
+        if (calendars != null && (calendars.containsKey(calendarID) || absent.contains(calendarID))) {
+            hits++;
+            return ReadableCopies.copy(calendars.get(calendarID));
+        }
+
+        // not loaded yet, or created since the last load
+        misses++;
+        load();
+        WritableNativeMap calendar = ReadableCopies.copy(calendars.get(calendarID));
+        if (calendar == null) {
+            absent.add(calendarID);
+        }
+        release();
+        return calendar;
+    }
+
+    synchronized WritableNativeArray all() {
+        validate();
+        if (calendars != null) {
+            hits++;
+        } else {
+            misses++;
+            load();
+        }
+
+        WritableNativeArray results = new WritableNativeArray();
+        for (WritableNativeMap calendar : calendars.values()) {
+            results.pushMap(ReadableCopies.copy(calendar));
+        }
+        release();
+        return results;
+    }
+
+    synchronized void invalidate() {
+        if (calendars != null) {
+            invalidations++;
+            calendars = null;
+        }
+    }
+
+    /**
+     * Drops the calendars if the table changed since they were loaded.
+     */
+    private void validate() {
+        if (calendars == null || !stale) {
+            return;
+        }
+        // cleared first, a change that lands while we read is checked next time
+        stale = false;
+        validations++;
+        if (loader.fingerprint() != fingerprint) {
+            invalidate();
+        }
+    }
+
+    synchronized WritableNativeMap stats() {
+        WritableNativeMap stats = new WritableNativeMap();
+        stats.putDouble("hits", hits);
+        stats.putDouble("misses", misses);
+        stats.putDouble("validations", validations);
+        stats.putDouble("invalidations", invalidations);
+        stats.putInt("size", calendars != null ? calendars.size() : 0);
+        return stats;
+    }
+
+    synchronized void close() {
+        if (registered) {
+            resolver.unregisterContentObserver(observer);
+            registered = false;
+        }
+        calendars = null;
+    }
+
+    private void load() {
+        if (!registered) {
+            try {
+                resolver.registerContentObserver(CalendarContract.CONTENT_URI, true, observer);
+                registered = true;
+            } catch (SecurityException e) {
+                Log.d("CalendarEvents", "Calendar cache disabled, cannot observe calendars", e);
+            }
+        }
+        // taken first, a change between the two reads makes them differ next time
+        stale = false;
+        fingerprint = loader.fingerprint();
+        calendars = loader.load();
+        absent.clear();
+    }
+
+    // without an observer the rows could go stale, so they are not kept
+    private void release() {
+        if (!registered) {
+            calendars = null;
+        }
+    }
+}
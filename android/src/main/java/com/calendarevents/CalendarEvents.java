@@ -1,6 +1,8 @@
 package com.calendarevents;
 
 import android.app.Activity;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.ContentValues;
@@ -9,8 +11,13 @@ import android.content.pm.PackageManager;
 import android.content.SharedPreferences;
 import android.Manifest;
 import android.database.DatabaseUtils;
+import android.database.MergeCursor;
 import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.provider.CalendarContract;
+import android.text.TextUtils;
+import android.util.Base64;
 import android.support.v4.app.ActivityCompat;
 import android.support.v4.content.ContextCompat;
 import android.database.Cursor;
@@ -30,27 +37,157 @@ import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.WritableNativeArray;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.bridge.Dynamic;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 import java.sql.Array;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.RejectedExecutionException;
 import android.util.Log;
 
 public class CalendarEvents extends ReactContextBaseJavaModule {
 
     private static int PERMISSION_REQUEST_CODE = 37;
     private final ReactContext reactContext;
+    private final CalendarExecutor executor;
+    private final CalendarCache calendarCache;
+    // provider queries measured and cancelled with the running call
+    private final ProviderQuery providerQuery;
+    private final InstanceCache instanceCache;
+    private final CalendarMetrics metrics = new CalendarMetrics();
+    private final ReadRequests requests = new ReadRequests();
+    private final SingleFlight flights = new SingleFlight();
+    private final EventSubscriptions subscriptions;
+    private final SearchIndex searchIndex;
     private static final String RNC_PREFS = "REACT_NATIVE_CALENDAR_PREFERENCES";
+    private static final String STREAM_EVENT = "CalendarEventsStream";
+    private static final String CHANGE_EVENT = "CalendarEventsChange";
+    private static final String E_CANCELLED = "E_CANCELLED";
+    private static final int DEFAULT_STREAM_CHUNK_SIZE = 200;
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
     private static final HashMap<Integer, Promise> permissionsPromises = new HashMap<>();
+    private static final long DAY_MILLIS = 86400000L;
+    // the first window of an instance search spans a month either side of now
+    private static final long INSTANCE_SEARCH_WINDOW_MILLIS = 31 * DAY_MILLIS;
+    // how far an instance search goes when the series has no known end
+    private static final long MAX_INSTANCE_SEARCH_MILLIS = 10 * 366 * DAY_MILLIS;
+    private static final String[] EVENT_PROJECTION = new String[]{
+            CalendarContract.Events._ID,
+            CalendarContract.Events.TITLE,
+            CalendarContract.Events.DESCRIPTION,
+            CalendarContract.Events.DTSTART,
+            CalendarContract.Events.DTEND,
+            CalendarContract.Events.ALL_DAY,
+            CalendarContract.Events.EVENT_LOCATION,
+            CalendarContract.Events.RRULE,
+            CalendarContract.Events.CALENDAR_ID,
+            CalendarContract.Events.AVAILABILITY,
+            CalendarContract.Events.HAS_ALARM,
+            CalendarContract.Instances.DURATION
+    };
+    private static final String[] ATTENDEE_PROJECTION = new String[]{
+            CalendarContract.Attendees._ID,
+            CalendarContract.Attendees.EVENT_ID,
+            CalendarContract.Attendees.ATTENDEE_NAME,
+            CalendarContract.Attendees.ATTENDEE_EMAIL,
+            CalendarContract.Attendees.ATTENDEE_TYPE,
+            CalendarContract.Attendees.ATTENDEE_RELATIONSHIP,
+            CalendarContract.Attendees.ATTENDEE_STATUS,
+            CalendarContract.Attendees.ATTENDEE_IDENTITY,
+            CalendarContract.Attendees.ATTENDEE_ID_NAMESPACE
+    };
 
     public CalendarEvents(ReactApplicationContext reactContext) {
+        this(reactContext, CalendarExecutor.DEFAULT_READ_POOL_SIZE);
+    }
+
+    public CalendarEvents(ReactApplicationContext reactContext, int readPoolSize) {
         super(reactContext);
         this.reactContext = reactContext;
+        this.executor = new CalendarExecutor(readPoolSize);
+        this.calendarCache = new CalendarCache(reactContext.getContentResolver(), new CalendarCache.Loader() {
+            @Override
+            public LinkedHashMap<String, WritableNativeMap> load() {
+                return loadCalendars();
+            }
+
+            @Override
+            public long fingerprint() {
+                long fingerprint = ContentHash.SEED;
+                Cursor cursor = query(CalendarContract.Calendars.CONTENT_URI, calendarProjection(), null, null, null);
+                if (cursor != null) {
+                    try {
+                        while (cursor.moveToNext()) {
+                            fingerprint = fingerprint * 31 + ContentHash.row(cursor, 0);
+                        }
+                    } finally {
+                        cursor.close();
+                    }
+                }
+                return fingerprint;
+            }
+        });
+        this.providerQuery = new ProviderQuery() {
+            @Override
+            public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+                return CalendarEvents.this.query(uri, projection, selection, selectionArgs, sortOrder);
+            }
+        };
+        this.instanceCache = new InstanceCache(reactContext.getContentResolver(), providerQuery);
+        this.searchIndex = new SearchIndex(reactContext, new SearchIndex.Host() {
+            @Override
+            public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+                return providerQuery.query(uri, projection, selection, selectionArgs, sortOrder);
+            }
+
+            @Override
+            public void schedule(Runnable reconcile) {
+                try {
+                    executor.read(CalendarExecutor.PRIORITY_NORMAL, metrics.measure("searchIndexReconcile", reconcile));
+                } catch (RejectedExecutionException e) {
+                    // the module is shutting down
+                }
+            }
+        });
+        this.subscriptions = new EventSubscriptions(reactContext.getContentResolver(), new EventSubscriptions.Host() {
+            @Override
+            public ProviderSnapshot snapshot(Collection<String> calendarIds, long start, long end) {
+                return ProviderSnapshot.load(providerQuery, calendarIds, start, end);
+            }
+
+            @Override
+            public ArrayList<InstanceCache.Instance> instances(long start, long end, List<String> calendarIDs, Collection<String> eventIDs, EventFields fields) {
+                Cursor cursor = eventIDs != null
+                        ? queryInstances(start, end, CalendarContract.Instances.EVENT_ID, eventIDs, fields, true)
+                        : queryInstances(start, end, CalendarContract.Instances.CALENDAR_ID, calendarIDs, fields, true);
+                return readInstances(cursor, fields);
+            }
+
+            @Override
+            public void schedule(Runnable update) {
+                try {
+                    executor.read(CalendarExecutor.PRIORITY_NORMAL, metrics.measure("subscriptionUpdate", update));
+                } catch (RejectedExecutionException e) {
+                    // the module is shutting down
+                }
+            }
+
+            @Override
+            public void emit(WritableNativeMap changes) {
+                CalendarEvents.this.reactContext
+                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit(CHANGE_EVENT, changes);
+            }
+        });
     }
 
     @Override
@@ -58,6 +195,217 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
         return "CalendarEvents";
     }
 
+    @Override
+    public void onCatalystInstanceDestroy() {
+        super.onCatalystInstanceDestroy();
+        executor.shutdown();
+        calendarCache.close();
+        instanceCache.close();
+        subscriptions.close();
+        searchIndex.close();
+    }
+
+    /**
+     * Where a queued read reports that it ends without a result.
+     */
+    private interface Rejection {
+        void reject(String code, String message);
+    }
+
+    /**
+     * Queues a provider read, measured as a call of {@code method}. A read
+     * given a `requestId` option can be cancelled with {@link #cancel}, which
+     * rejects its promise with {@link #E_CANCELLED}, as does shutting the
+     * module down before the read ran.
+     *
+     * @param errorCode the code the promise is rejected with if the task throws
+     */
+    private void read(String method, String errorCode, ReadableMap options, final Promise promise, Runnable task) {
+        read(method, errorCode, options, new Rejection() {
+            @Override
+            public void reject(String code, String message) {
+                promise.reject(code, message);
+            }
+        }, task);
+    }
+
+    private void read(final String method, final String errorCode, ReadableMap options, final Rejection rejection, final Runnable task) {
+        final String requestId = options != null && options.hasKey("requestId") ? options.getString("requestId") : null;
+        final CancellationSignal signal = requests.register(requestId);
+        executor.read(readPriority(options), metrics.measure(method, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    requests.run(signal, task);
+                } catch (OperationCanceledException e) {
+                    rejection.reject(E_CANCELLED, "Request " + requestId + " was cancelled");
+                } catch (RuntimeException e) {
+                    Log.w("CalendarEvents", method + " failed", e);
+                    metrics.failed();
+                    rejection.reject(errorCode, e.getMessage());
+                } finally {
+                    requests.unregister(requestId, signal);
+                }
+            }
+        }), new Runnable() {
+            @Override
+            public void run() {
+                requests.unregister(requestId, signal);
+                rejection.reject(E_CANCELLED, "The module shut down before the read ran");
+            }
+        });
+    }
+
+    /**
+     * Like {@link #read}, but while a read with the same key is queued or
+     * running the caller waits for its result instead of queueing another.
+     * Reads with a `requestId` are not shared, cancelling one must not
+     * cancel the others.
+     *
+     * @param errorCode the code every waiter is rejected with if the read throws
+     */
+    private void readShared(String method, final String key, final String errorCode, ReadableMap options, final Promise promise, final SingleFlight.Read task) {
+        if (options != null && options.hasKey("requestId")) {
+            read(method, errorCode, options, promise, new Runnable() {
+                @Override
+                public void run() {
+                    promise.resolve(task.run());
+                }
+            });
+            return;
+        }
+
+        if (!flights.join(key, promise)) {
+            return;
+        }
+
+        try {
+            read(method, errorCode, options, new Rejection() {
+                @Override
+                public void reject(String code, String message) {
+                    flights.reject(key, code, message);
+                }
+            }, new Runnable() {
+                @Override
+                public void run() {
+                    flights.resolve(key, task.run());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the module is shutting down, nobody will run the read
+            flights.reject(key, errorCode, e.getMessage());
+        }
+    }
+
+    /**
+     * Queues a provider write, measured as a call of {@code method}. The
+     * instance cache evicts the events it names and the search index queues
+     * them for reindexing as soon as it is done, instead of waiting for the
+     * provider's change notification.
+     * @param errorCode the code the promise is rejected with if the task throws
+     * @param eventIDs the existing events the write changes, null if it changes calendars
+     */
+    private void write(final String method, final String errorCode, final Collection<String> eventIDs, final Promise promise, final Runnable task) {
+        executor.write(metrics.measure(method, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.w("CalendarEvents", method + " failed", e);
+                    metrics.failed();
+                    promise.reject(errorCode, e.getMessage());
+                } finally {
+                    instanceCache.changed(eventIDs);
+                    searchIndex.changed(eventIDs);
+                }
+            }
+        }));
+    }
+
+    /**
+     * @return the IDs of the events a save updates, new events have none
+     */
+    private static ArrayList<String> eventIds(ReadableArray detailsList) {
+        ArrayList<String> ids = new ArrayList<>();
+        for (int i = 0; i < detailsList.size(); i++) {
+            ReadableMap details = detailsList.getMap(i);
+            if (details != null && details.hasKey("id")) {
+                ids.add(details.getString("id"));
+            }
+        }
+        return ids;
+    }
+
+    private static ArrayList<String> strings(ReadableArray values) {
+        ArrayList<String> strings = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            strings.add(values.getString(i));
+        }
+        return strings;
+    }
+
+    /**
+     * Queries the provider and adds the query, its rows and its time to the
+     * running call's metrics once the cursor is closed, so the caller must
+     * close it before its call ends.
+     */
+    private Cursor query(final Uri uri, final String[] projection, final String selection, final String[] selectionArgs, String sortOrder) {
+        long start = System.nanoTime();
+        Cursor cursor = reactContext.getContentResolver().query(uri, projection, selection, selectionArgs, sortOrder, requests.current());
+        if (cursor == null) {
+            metrics.query(uri, projection, selection, selectionArgs, 0, System.nanoTime() - start);
+            return null;
+        }
+        return new MeasuredCursor(cursor, System.nanoTime() - start, new MeasuredCursor.Listener() {
+            @Override
+            public void closed(int rows, long nanos) {
+                metrics.query(uri, projection, selection, selectionArgs, rows, nanos);
+            }
+        });
+    }
+
+    private static boolean columnar(ReadableMap options) {
+        return options != null && options.hasKey("format") && "columnar".equals(options.getString("format"));
+    }
+
+    private static boolean binary(ReadableMap options) {
+        return options != null && options.hasKey("format") && "binary".equals(options.getString("format"));
+    }
+
+    private static boolean cacheResults(ReadableMap options) {
+        return options != null && options.hasKey("cache") && options.getBoolean("cache");
+    }
+
+    /**
+     * The availabilities that block time for findFreeBusy and findConflicts,
+     * busy and tentative by default.
+     */
+    private static HashSet<String> busyAvailabilities(ReadableMap options) {
+        HashSet<String> availabilities = new HashSet<>();
+        if (options != null && options.hasKey("busyAvailabilities")) {
+            ReadableArray names = options.getArray("busyAvailabilities");
+            for (int i = 0; i < names.size(); i++) {
+                availabilities.add(names.getString(i));
+            }
+        } else {
+            availabilities.add("busy");
+            availabilities.add("tentative");
+        }
+        return availabilities;
+    }
+
+    private static boolean ignoreAllDay(ReadableMap options) {
+        return options != null && options.hasKey("ignoreAllDay") && options.getBoolean("ignoreAllDay");
+    }
+
+    private static int readPriority(ReadableMap options) {
+        if (options != null && options.hasKey("priority") && "high".equals(options.getString("priority"))) {
+            return CalendarExecutor.PRIORITY_HIGH;
+        }
+        return CalendarExecutor.PRIORITY_NORMAL;
+    }
+
     //region Calendar Permissions
     private void requestCalendarReadWritePermission(final Promise promise)
     {
@@ -111,15 +459,34 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     //endregion
 
     private WritableNativeArray findEventCalendars() {
+        return calendarCache.all();
+    }
 
-        Cursor cursor;
-        ContentResolver cr = reactContext.getContentResolver();
+    private LinkedHashMap<String, WritableNativeMap> loadCalendars() {
+
+        LinkedHashMap<String, WritableNativeMap> results = new LinkedHashMap<>();
 
         Uri uri = CalendarContract.Calendars.CONTENT_URI;
 
+        Cursor cursor = query(uri, calendarProjection(), null, null, null);
+
+        if (cursor != null) {
+            try {
+                while (cursor.moveToNext()) {
+                    results.put(cursor.getString(0), serializeEventCalendar(cursor));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        return results;
+    }
+
+    private static String[] calendarProjection() {
         String IS_PRIMARY = CalendarContract.Calendars.IS_PRIMARY == null ? "0" : CalendarContract.Calendars.IS_PRIMARY;
 
-        cursor = cr.query(uri, new String[]{
+        return new String[]{
                 CalendarContract.Calendars._ID,
                 CalendarContract.Calendars.CALENDAR_DISPLAY_NAME,
                 CalendarContract.Calendars.ACCOUNT_NAME,
@@ -128,48 +495,11 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
                 CalendarContract.Calendars.ALLOWED_AVAILABILITY,
                 CalendarContract.Calendars.ACCOUNT_TYPE,
                 CalendarContract.Calendars.CALENDAR_COLOR
-        }, null, null, null);
-
-        return serializeEventCalendars(cursor);
+        };
     }
 
     private WritableNativeMap findCalendarById(String calendarID) {
-
-        WritableNativeMap result = null;
-        Cursor cursor = null;
-        ContentResolver cr = reactContext.getContentResolver();
-        Uri uri = ContentUris.withAppendedId(CalendarContract.Calendars.CONTENT_URI, Integer.parseInt(calendarID));
-
-        String IS_PRIMARY = CalendarContract.Calendars.IS_PRIMARY == null ? "0" : CalendarContract.Calendars.IS_PRIMARY;
-
-        try {
-            cursor = cr.query(uri, new String[]{
-                    CalendarContract.Calendars._ID,
-                    CalendarContract.Calendars.CALENDAR_DISPLAY_NAME,
-                    CalendarContract.Calendars.ACCOUNT_NAME,
-                    IS_PRIMARY,
-                    CalendarContract.Calendars.CALENDAR_ACCESS_LEVEL,
-                    CalendarContract.Calendars.ALLOWED_AVAILABILITY,
-                    CalendarContract.Calendars.ACCOUNT_TYPE,
-                    CalendarContract.Calendars.CALENDAR_COLOR
-            }, null, null, null);
-
-            if (cursor != null && cursor.moveToFirst()) {
-                result = serializeEventCalendar(cursor);
-                cursor.close();
-
-            }
-
-            cursor = null;
-
-        } finally {
-            if(cursor != null) {
-                cursor.close();
-                cursor = null;
-            }
-        }
-
-        return result;
+        return calendarCache.get(calendarID);
     }
 
     private Integer calAccessConstantMatchingString(String string) {
@@ -257,6 +587,7 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
         Uri calendarsUri = uriBuilder.build();
 
         Uri calendarUri = cr.insert(calendarsUri, calendarValues);
+        calendarCache.invalidate();
         return Integer.parseInt(calendarUri.getLastPathSegment());
     }
 
@@ -268,6 +599,7 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
 
             Uri uri = ContentUris.withAppendedId(CalendarContract.Calendars.CONTENT_URI, (long) Integer.parseInt(calendarID));
             rows = cr.delete(uri, null, null);
+            calendarCache.invalidate();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -276,90 +608,468 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
         return rows > 0;
     }
 
-    private WritableNativeArray findAttendeesByEventId(String eventID) {
-        WritableNativeArray result;
-        Cursor cursor;
-        ContentResolver cr = reactContext.getContentResolver();
-        String query = "(" + CalendarContract.Attendees.EVENT_ID + " = ?)";
-        String[] args = new String[]{eventID};
-
-        cursor = cr.query(CalendarContract.Attendees.CONTENT_URI, new String[]{
-                CalendarContract.Attendees._ID,
-                CalendarContract.Attendees.EVENT_ID,
-                CalendarContract.Attendees.ATTENDEE_NAME,
-                CalendarContract.Attendees.ATTENDEE_EMAIL,
-                CalendarContract.Attendees.ATTENDEE_TYPE,
-                CalendarContract.Attendees.ATTENDEE_RELATIONSHIP,
-                CalendarContract.Attendees.ATTENDEE_STATUS,
-                CalendarContract.Attendees.ATTENDEE_IDENTITY,
-                CalendarContract.Attendees.ATTENDEE_ID_NAMESPACE
-        }, query, args, null);
-
-        if (cursor != null && cursor.moveToFirst()) {
-            result = serializeAttendeeCalendar(cursor);
+    //region Bulk Loading
+    private EventRelations findEventRelations(Cursor cursor, EventColumns columns) {
+        return findEventRelations(cursor, columns, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Loads the relations of up to {@code count} rows starting at {@code first},
+     * leaving the cursor positioned after the last row it read.
+     */
+    private EventRelations findEventRelations(Cursor cursor, EventColumns columns, int first, int count) {
+        LinkedHashSet<String> eventIDs = new LinkedHashSet<>();
+        LinkedHashSet<String> alarmEventIDs = new LinkedHashSet<>();
+        LinkedHashSet<String> calendarIDs = new LinkedHashSet<>();
+
+        boolean withAttendees = columns.fields.has("attendees");
+        boolean withAlarms = columns.fields.has("alarms");
+        boolean withCalendars = columns.fields.has("calendar");
+
+        cursor.moveToPosition(first - 1);
+        for (int read = 0; read < count && cursor.moveToNext(); read++) {
+            String eventID = cursor.getString(columns.eventId);
+            if (eventID == null) {
+                continue;
+            }
+            if (withAttendees) {
+                eventIDs.add(eventID);
+            }
+            if (withAlarms && columns.hasAlarm(cursor)) {
+                alarmEventIDs.add(eventID);
+            }
+            String calendarID = columns.string(cursor, columns.calendarId);
+            if (withCalendars && calendarID != null) {
+                calendarIDs.add(calendarID);
+            }
+        }
+
+        long start = metrics.startChildren();
+        try {
+            return loadEventRelations(eventIDs, alarmEventIDs, calendarIDs);
+        } finally {
+            metrics.endChildren(start);
+        }
+    }
+
+    private EventRelations loadEventRelations(Collection<String> eventIDs, Collection<String> alarmEventIDs, Collection<String> calendarIDs) {
+        EventRelations relations = new EventRelations();
+
+        for (String calendarID : calendarIDs) {
+            relations.putCalendar(calendarID, calendarCache.get(calendarID));
+        }
+
+        for (String[] chunk : Selection.chunk(eventIDs)) {
+            Selection selection = new Selection().in(CalendarContract.Attendees.EVENT_ID, chunk);
+            Cursor attendeeCursor = query(CalendarContract.Attendees.CONTENT_URI, ATTENDEE_PROJECTION, selection.sql(), selection.args(), null);
+            if (attendeeCursor == null) {
+                continue;
+            }
+            try {
+                while (attendeeCursor.moveToNext()) {
+                    String eventID = attendeeCursor.getString(1);
+                    relations.addAttendee(eventID, serializeAttendee(attendeeCursor));
+                    relations.addChildHash(eventID, ContentHash.row(attendeeCursor, 2));
+                }
+            } finally {
+                attendeeCursor.close();
+            }
+        }
+
+        for (String[] chunk : Selection.chunk(alarmEventIDs)) {
+            Selection selection = new Selection().in(CalendarContract.Reminders.EVENT_ID, chunk);
+            Cursor reminderCursor = query(CalendarContract.Reminders.CONTENT_URI, new String[]{
+                    CalendarContract.Reminders.EVENT_ID,
+                    CalendarContract.Reminders.MINUTES
+            }, selection.sql(), selection.args(), null);
+            if (reminderCursor == null) {
+                continue;
+            }
+            try {
+                while (reminderCursor.moveToNext()) {
+                    int minutes;
+                    try {
+                        minutes = reminderCursor.getInt(1);
+                    } catch (Exception e) {
+                        Log.d(this.getName(), "Error parsing event minutes", e);
+                        continue;
+                    }
+                    relations.addReminder(reminderCursor.getString(0), minutes);
+                    relations.addChildHash(reminderCursor.getString(0), ContentHash.row(reminderCursor, 1));
+                }
+            } finally {
+                reminderCursor.close();
+            }
+        }
+
+        return relations;
+    }
+    //endregion
+
+    //region Event Accessors
+    private WritableNativeArray findEvents(Dynamic startDate, Dynamic endDate, ReadableArray calendars, EventFields fields) {
+        return serializeEvents(queryEvents(startDate, endDate, calendars, fields), fields);
+    }
+
+    private Cursor queryEvents(Dynamic startDate, Dynamic endDate, ReadableArray calendars, EventFields fields) {
+        long[] range = dateRange(startDate, endDate);
+        return queryInstances(range[0], range[1], calendars, fields, false);
+    }
+
+    /**
+     * Serves the range from the instance cache, or queries every instance that
+     * overlaps it and caches those before returning the ones inside it.
+     */
+    private WritableNativeArray findEventsCached(Dynamic startDate, Dynamic endDate, ReadableArray calendars, EventFields fields) {
+        long[] range = dateRange(startDate, endDate);
+
+        HashSet<String> calendarIds = null;
+        ArrayList<String> sortedIds = new ArrayList<>();
+        if (calendars.size() > 0) {
+            calendarIds = new HashSet<>();
+            for (int i = 0; i < calendars.size(); i++) {
+                calendarIds.add(calendars.getString(i));
+            }
+            sortedIds.addAll(calendarIds);
+            Collections.sort(sortedIds);
+        }
+        String scope = TextUtils.join(",", sortedIds) + "|" + fields.key();
+
+        WritableNativeArray cached = instanceCache.find(range[0], range[1], scope, calendarIds);
+        if (cached != null) {
+            return cached;
+        }
+
+        int token = instanceCache.token();
+        WritableNativeArray results = new WritableNativeArray();
+        ArrayList<InstanceCache.Instance> instances = readInstances(queryInstances(range[0], range[1], calendars, fields, true), fields);
+        for (InstanceCache.Instance instance : instances) {
+            if (instance.begin >= range[0] && instance.end <= range[1]) {
+                results.pushMap(ReadableCopies.copy(instance.event));
+            }
+        }
+
+        instanceCache.put(token, range[0], range[1], scope, calendarIds, instances);
+        return results;
+    }
+
+    /**
+     * Serializes a cursor from {@code queryInstances(..., true)}, keeping the
+     * begin and end of every instance next to it.
+     */
+    private ArrayList<InstanceCache.Instance> readInstances(Cursor cursor, EventFields fields) {
+        ArrayList<InstanceCache.Instance> instances = new ArrayList<>();
+        if (cursor == null) {
+            return instances;
+        }
+        try {
+            EventColumns columns = EventColumns.of(cursor, fields);
+            EventRelations relations = findEventRelations(cursor, columns);
+            int begin = cursor.getColumnIndex(CalendarContract.Instances.BEGIN);
+            int end = cursor.getColumnIndex(CalendarContract.Instances.END);
+
+            cursor.moveToPosition(-1);
+            while (cursor.moveToNext()) {
+                instances.add(new InstanceCache.Instance(cursor.getString(columns.eventId), cursor.getLong(begin), cursor.getLong(end),
+                        serializeEvent(cursor, relations, columns)));
+            }
+        } finally {
             cursor.close();
-        } else {
-            WritableNativeArray emptyAttendees = new WritableNativeArray();
-            result = emptyAttendees;
+        }
+        return instances;
+    }
+
+    /**
+     * Reads the range but only serializes the instances the caller does not
+     * already have, see {@link RangeDiff}. Every instance is hashed over its
+     * Instances columns, attendees and reminders, so the hash changes with
+     * anything the serialized event would show.
+     */
+    private WritableNativeMap findEventsSince(Dynamic startDate, Dynamic endDate, ReadableArray calendars, EventFields fields, Dynamic since) {
+        long[] range = dateRange(startDate, endDate);
+        RangeDiff diff = new RangeDiff(since);
+        WritableNativeArray events = new WritableNativeArray();
+
+        Cursor cursor = queryInstances(range[0], range[1], calendars, fields, true);
+        if (cursor != null) {
+            try {
+                EventColumns columns = EventColumns.of(cursor, fields);
+                EventRelations relations = findEventRelations(cursor, columns);
+                int begin = cursor.getColumnIndex(CalendarContract.Instances.BEGIN);
+                int end = cursor.getColumnIndex(CalendarContract.Instances.END);
+
+                // hashed first, a digest decides whether anything is serialized at all;
+                // the rows to send are collected as they are read, without counting the cursor
+                int[] sendRows = new int[64];
+                long[] sendHashes = new long[64];
+                int sendCount = 0;
+                cursor.moveToPosition(-1);
+                while (cursor.moveToNext()) {
+                    if (cursor.getLong(begin) < range[0] || cursor.getLong(end) > range[1]) {
+                        continue;
+                    }
+                    String eventID = cursor.getString(columns.eventId);
+                    long hash = ContentHash.row(cursor, 0) * 31 + relations.childHash(eventID);
+                    if (diff.add(RangeDiff.key(eventID, cursor.getLong(begin)), hash)) {
+                        if (sendCount == sendRows.length) {
+                            sendRows = Arrays.copyOf(sendRows, sendCount * 2);
+                            sendHashes = Arrays.copyOf(sendHashes, sendCount * 2);
+                        }
+                        sendRows[sendCount] = cursor.getPosition();
+                        sendHashes[sendCount] = hash;
+                        sendCount++;
+                    }
+                }
+
+                if (!diff.unchanged()) {
+                    for (int i = 0; i < sendCount; i++) {
+                        cursor.moveToPosition(sendRows[i]);
+                        WritableNativeMap event = serializeEvent(cursor, relations, columns);
+                        event.putString("contentHash", RangeDiff.hex(sendHashes[i]));
+                        events.pushMap(event);
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
         }
 
+        WritableNativeArray removed = new WritableNativeArray();
+        for (String key : diff.removed()) {
+            WritableNativeMap instance = new WritableNativeMap();
+            instance.putString("id", RangeDiff.eventId(key));
+            EventSerializer.putDate(instance, "startDate", RangeDiff.begin(key), fields);
+            removed.pushMap(instance);
+        }
+
+        WritableNativeMap result = new WritableNativeMap();
+        result.putArray("events", events);
+        result.putArray("removed", removed);
+        result.putString("digest", diff.digest());
+        result.putBoolean("complete", diff.complete());
         return result;
     }
 
-    //region Event Accessors
-    private WritableNativeArray findEvents(Dynamic startDate, Dynamic endDate, ReadableArray calendars) {
-        String dateFormat = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-        sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+    /**
+     * Merges the busy instances of the range and finds the free slots between
+     * them. Only the columns that decide whether an instance is busy are read.
+     *
+     * @param busyAvailabilities the availabilities that count as busy, as
+     *                           {@link EventSerializer#availability} names them
+     */
+    private WritableNativeMap findFreeBusy(Dynamic startDate, Dynamic endDate, ReadableArray calendars,
+                                           HashSet<String> busyAvailabilities, boolean ignoreAllDay, long minFreeMillis) {
+        long[] range = dateRange(startDate, endDate);
+        ArrayList<String> calendarIDs = new ArrayList<>(calendars.size());
+        for (int i = 0; i < calendars.size(); i++) {
+            calendarIDs.add(calendars.getString(i));
+        }
+
+        FreeBusy freeBusy = new FreeBusy();
+        Cursor cursor = queryInstanceColumns(range[0], range[1], CalendarContract.Instances.CALENDAR_ID, calendarIDs, new String[]{
+                CalendarContract.Instances.BEGIN,
+                CalendarContract.Instances.END,
+                CalendarContract.Instances.AVAILABILITY,
+                CalendarContract.Instances.ALL_DAY,
+                CalendarContract.Instances.STATUS
+        }, true);
+        if (cursor != null) {
+            try {
+                while (cursor.moveToNext()) {
+                    if (blocksTime(cursor, 2, busyAvailabilities, ignoreAllDay)) {
+                        freeBusy.add(cursor.getLong(0), cursor.getLong(1), range[0], range[1]);
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        long[] busy = freeBusy.busy();
+        WritableNativeMap result = new WritableNativeMap();
+        result.putArray("busy", intervals(busy));
+        result.putArray("free", intervals(FreeBusy.free(busy, range[0], range[1], minFreeMillis)));
+        return result;
+    }
+
+    /**
+     * @param first the index of the AVAILABILITY column, followed by ALL_DAY and STATUS
+     */
+    private boolean blocksTime(Cursor cursor, int first, HashSet<String> busyAvailabilities, boolean ignoreAllDay) {
+        if (ignoreAllDay && cursor.getInt(first + 1) != 0) {
+            return false;
+        }
+        String availability = EventSerializer.availability(cursor.getInt(first));
+        // an unconfirmed busy event only blocks the time tentatively
+        if ("busy".equals(availability) && !cursor.isNull(first + 2) && cursor.getInt(first + 2) == CalendarContract.Events.STATUS_TENTATIVE) {
+            availability = "tentative";
+        }
+        return busyAvailabilities.contains(availability);
+    }
+
+    /**
+     * @return the index of the first candidate that is not a map with a
+     * string or number `startDate` and `endDate`, or -1 when all are
+     */
+    private static int invalidCandidate(ReadableArray candidates) {
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.getType(i) != ReadableType.Map) {
+                return i;
+            }
+            ReadableMap candidate = candidates.getMap(i);
+            if (!isDate(candidate, "startDate") || !isDate(candidate, "endDate")) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDate(ReadableMap map, String key) {
+        if (!map.hasKey(key)) {
+            return false;
+        }
+        ReadableType type = map.getType(key);
+        return type == ReadableType.String || type == ReadableType.Number;
+    }
+
+    /**
+     * Finds the instances that overlap each candidate, with one query over
+     * the window all candidates span and an {@link IntervalIndex} of its
+     * busy instances. An instance of the event a candidate updates, given
+     * by its `id`, is not a conflict.
+     *
+     * @return for each candidate, in order, the instances it overlaps by start
+     */
+    private WritableNativeArray findConflicts(ReadableArray candidates, ReadableArray calendars,
+                                              HashSet<String> busyAvailabilities, boolean ignoreAllDay, EventFields fields) {
+        int count = candidates.size();
+        long[] starts = new long[count];
+        long[] ends = new long[count];
+        String[] candidateIDs = new String[count];
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            ReadableMap candidate = candidates.getMap(i);
+            long[] range = dateRange(candidate.getDynamic("startDate"), candidate.getDynamic("endDate"));
+            starts[i] = range[0];
+            ends[i] = range[1];
+            candidateIDs[i] = candidate.hasKey("id") && !candidate.isNull("id") ? candidate.getString("id") : null;
+            first = Math.min(first, range[0]);
+            last = Math.max(last, range[1]);
+        }
+
+        WritableNativeArray results = new WritableNativeArray();
+        if (count == 0) {
+            return results;
+        }
+
+        ArrayList<String> calendarIDs = new ArrayList<>(calendars.size());
+        for (int i = 0; i < calendars.size(); i++) {
+            calendarIDs.add(calendars.getString(i));
+        }
+
+        int size = 0;
+        long[] begins = new long[64];
+        long[] instanceEnds = new long[64];
+        ArrayList<String> instanceIDs = new ArrayList<>();
+        ArrayList<String> eventIDs = new ArrayList<>();
+        Cursor cursor = queryInstanceColumns(first, last, CalendarContract.Instances.CALENDAR_ID, calendarIDs, new String[]{
+                CalendarContract.Instances._ID,
+                CalendarContract.Instances.EVENT_ID,
+                CalendarContract.Instances.BEGIN,
+                CalendarContract.Instances.END,
+                CalendarContract.Instances.AVAILABILITY,
+                CalendarContract.Instances.ALL_DAY,
+                CalendarContract.Instances.STATUS
+        }, true);
+        if (cursor != null) {
+            try {
+                while (cursor.moveToNext()) {
+                    if (!blocksTime(cursor, 4, busyAvailabilities, ignoreAllDay)) {
+                        continue;
+                    }
+                    if (size == begins.length) {
+                        begins = Arrays.copyOf(begins, size * 2);
+                        instanceEnds = Arrays.copyOf(instanceEnds, size * 2);
+                    }
+                    begins[size] = cursor.getLong(2);
+                    instanceEnds[size] = cursor.getLong(3);
+                    instanceIDs.add(cursor.getString(0));
+                    eventIDs.add(cursor.getString(1));
+                    size++;
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        IntervalIndex index = new IntervalIndex(begins, instanceEnds, size);
+        for (int i = 0; i < count; i++) {
+            WritableNativeArray conflicts = new WritableNativeArray();
+            for (int hit : index.overlapping(starts[i], ends[i])) {
+                if (eventIDs.get(hit).equals(candidateIDs[i])) {
+                    continue;
+                }
+                WritableNativeMap conflict = new WritableNativeMap();
+                conflict.putString("id", eventIDs.get(hit));
+                conflict.putString("instanceId", instanceIDs.get(hit));
+                EventSerializer.putDate(conflict, "startDate", begins[hit], fields);
+                EventSerializer.putDate(conflict, "endDate", instanceEnds[hit], fields);
+                conflicts.pushMap(conflict);
+            }
+            results.pushArray(conflicts);
+        }
+        return results;
+    }
 
-        Calendar eStartDate = Calendar.getInstance();
-        Calendar eEndDate = Calendar.getInstance();
+    private static WritableNativeArray intervals(long[] intervals) {
+        WritableNativeArray array = new WritableNativeArray();
+        for (long millis : intervals) {
+            array.pushDouble(millis);
+        }
+        return array;
+    }
+
+    private long[] dateRange(Dynamic startDate, Dynamic endDate) {
+        long now = System.currentTimeMillis();
+        long[] range = new long[]{now, now};
 
         try {
             if (startDate.getType() == ReadableType.String) {
-                eStartDate.setTime(sdf.parse(startDate.asString()));
+                range[0] = Iso8601.UTC.parse(startDate.asString());
             } else if (startDate.getType() == ReadableType.Number) {
-                eStartDate.setTimeInMillis((long)startDate.asDouble());
+                range[0] = (long)startDate.asDouble();
             }
 
             if (endDate.getType() == ReadableType.String) {
-                eEndDate.setTime(sdf.parse(endDate.asString()));
+                range[1] = Iso8601.UTC.parse(endDate.asString());
             } else if (endDate.getType() == ReadableType.Number) {
-                eEndDate.setTimeInMillis((long)endDate.asDouble());
+                range[1] = (long)endDate.asDouble();
             }
         } catch (ParseException e) {
             e.printStackTrace();
         }
 
-        Cursor cursor;
-        ContentResolver cr = reactContext.getContentResolver();
-
-        Uri.Builder uriBuilder = CalendarContract.Instances.CONTENT_URI.buildUpon();
-        ContentUris.appendId(uriBuilder, eStartDate.getTimeInMillis());
-        ContentUris.appendId(uriBuilder, eEndDate.getTimeInMillis());
-
-        Uri uri = uriBuilder.build();
-
-        String selection = "((" + CalendarContract.Instances.BEGIN + " >= " + eStartDate.getTimeInMillis() + ") " +
-                "AND (" + CalendarContract.Instances.END + " <= " + eEndDate.getTimeInMillis() + ") " +
-                "AND (" + CalendarContract.Instances.VISIBLE + " = 1) " +
-                "AND (" + CalendarContract.Instances.STATUS + " IS NOT " + CalendarContract.Events.STATUS_CANCELED + ") ";
+        return range;
+    }
 
-        if (calendars.size() > 0) {
-            String calendarQuery = "AND (";
-            for (int i = 0; i < calendars.size(); i++) {
-                calendarQuery += CalendarContract.Instances.CALENDAR_ID + " = " + calendars.getString(i);
-                if (i != calendars.size() - 1) {
-                    calendarQuery += " OR ";
-                }
-            }
-            calendarQuery += ")";
-            selection += calendarQuery;
+    private Cursor queryInstances(long start, long end, ReadableArray calendars, EventFields fields, boolean overlapping) {
+        ArrayList<String> calendarIDs = new ArrayList<>(calendars.size());
+        for (int i = 0; i < calendars.size(); i++) {
+            calendarIDs.add(calendars.getString(i));
         }
+        return queryInstances(start, end, CalendarContract.Instances.CALENDAR_ID, calendarIDs, fields, overlapping);
+    }
 
-        selection += ")";
-
-        cursor = cr.query(uri, new String[]{
+    /**
+     * @param column      the column {@code ids} are matched against
+     * @param ids         calendar or event IDs, every instance of the range when empty
+     * @param overlapping also return the instances that only overlap the range
+     *                    instead of lying inside it; their begin, end and
+     *                    calendar columns are always projected
+     */
+    private Cursor queryInstances(long start, long end, String column, Collection<String> ids, EventFields fields, boolean overlapping) {
+        String[] projection = new String[]{
                 CalendarContract.Instances.EVENT_ID,
                 CalendarContract.Instances.TITLE,
                 CalendarContract.Instances.DESCRIPTION,
@@ -375,68 +1085,254 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
                 CalendarContract.Instances.EVENT_ID,
                 CalendarContract.Instances.DURATION,
                 CalendarContract.Instances.ORIGINAL_SYNC_ID,
-        }, selection, null, null);
+        };
+        projection = overlapping
+                ? fields.project(projection, CalendarContract.Instances.BEGIN, CalendarContract.Instances.END, CalendarContract.Instances.CALENDAR_ID)
+                : fields.project(projection);
+
+        return queryInstanceColumns(start, end, column, ids, projection, overlapping);
+    }
+
+    /**
+     * Like {@link #queryInstances}, with a projection of its own instead of
+     * the event fields.
+     */
+    private Cursor queryInstanceColumns(long start, long end, String column, Collection<String> ids, String[] projection, boolean overlapping) {
+        Uri.Builder uriBuilder = CalendarContract.Instances.CONTENT_URI.buildUpon();
+        ContentUris.appendId(uriBuilder, start);
+        ContentUris.appendId(uriBuilder, end);
+
+        Uri uri = uriBuilder.build();
+
+        // one query per chunk of IDs, read back to back
+        List<String[]> idChunks = ids.isEmpty()
+                ? Collections.<String[]>singletonList(null)
+                : Selection.chunk(ids);
+
+        Cursor[] cursors = new Cursor[idChunks.size()];
+        try {
+            for (int i = 0; i < cursors.length; i++) {
+                Selection selection = new Selection()
+                        .where(CalendarContract.Instances.VISIBLE + " = 1")
+                        .where(CalendarContract.Instances.STATUS + " IS NOT " + CalendarContract.Events.STATUS_CANCELED);
+                if (!overlapping) {
+                    selection.atLeast(CalendarContract.Instances.BEGIN, start)
+                            .atMost(CalendarContract.Instances.END, end);
+                }
+                if (idChunks.get(i) != null) {
+                    selection.in(column, idChunks.get(i));
+                }
+                cursors[i] = query(uri, projection, selection.sql(), selection.args(), null);
+            }
+        } catch (RuntimeException e) {
+            // a later chunk was cancelled or refused, nobody will close the earlier ones
+            for (Cursor cursor : cursors) {
+                if (cursor != null) {
+                    cursor.close();
+                }
+            }
+            throw e;
+        }
+
+        return cursors.length == 1 ? cursors[0] : new MergeCursor(cursors);
+    }
+
+    private WritableNativeMap findEventById(String eventID) {
+        return findEventById(eventID, EventFields.ALL);
+    }
+
+    private WritableNativeMap findEventById(String eventID, EventFields fields) {
+
+        WritableNativeMap result;
+        Cursor cursor = null;
+        Uri uri = ContentUris.withAppendedId(CalendarContract.Events.CONTENT_URI, Integer.parseInt(eventID));
+
+        Selection selection = new Selection().where(CalendarContract.Events.DELETED + " != 1");
+
+        try {
+            cursor = query(uri, fields.project(EVENT_PROJECTION), selection.sql(), selection.args(), null);
+
+            if (cursor.getCount() > 0) {
+                EventColumns columns = EventColumns.of(cursor, fields);
+                EventRelations relations = findEventRelations(cursor, columns);
+                cursor.moveToFirst();
+                result = serializeEvent(cursor, relations, columns);
+            } else {
+                result = null;
+            }
+        }
+        finally {
+            if(cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Loads the events with one IN query per {@link Selection#MAX_ARGS} IDs and
+     * their attendees, reminders and calendars in bulk.
+     * @return every requested ID, mapped to its event or to null if not found
+     */
+    private WritableNativeMap findEventsByIds(Collection<String> eventIDs, EventFields fields) {
+        HashMap<String, WritableNativeMap> found = serializeEventsByIds(eventIDs, fields);
+
+        WritableNativeMap results = new WritableNativeMap();
+        for (String eventID : eventIDs) {
+            WritableNativeMap event = found.remove(eventID);
+            if (event != null) {
+                results.putMap(eventID, event);
+            } else if (!results.hasKey(eventID)) {
+                results.putNull(eventID);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * @return the events that exist, by ID
+     */
+    private HashMap<String, WritableNativeMap> serializeEventsByIds(Collection<String> eventIDs, EventFields fields) {
+        HashMap<String, WritableNativeMap> found = new HashMap<>();
+
+        for (String[] chunk : Selection.chunk(new LinkedHashSet<>(eventIDs))) {
+            Selection selection = new Selection()
+                    .where(CalendarContract.Events.DELETED + " != 1")
+                    .in(CalendarContract.Events._ID, chunk);
+            Cursor cursor = query(CalendarContract.Events.CONTENT_URI, fields.project(EVENT_PROJECTION), selection.sql(), selection.args(), null);
+            if (cursor == null) {
+                continue;
+            }
+            try {
+                EventColumns columns = EventColumns.of(cursor, fields);
+                EventRelations relations = findEventRelations(cursor, columns);
 
+                cursor.moveToPosition(-1);
+                while (cursor.moveToNext()) {
+                    found.put(cursor.getString(columns.id), serializeEvent(cursor, relations, columns));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
 
-        return serializeEvents(cursor);
+        return found;
     }
 
-    private WritableNativeMap findEventById(String eventID) {
+    /**
+     * @return the matching events, best match first
+     */
+    private WritableNativeArray searchEvents(String query, Dynamic startDate, Dynamic endDate, ReadableArray calendars, int limit, EventFields fields) {
+        long[] range = dateRange(startDate, endDate);
+        ArrayList<String> calendarIDs = new ArrayList<>(calendars.size());
+        for (int i = 0; i < calendars.size(); i++) {
+            calendarIDs.add(calendars.getString(i));
+        }
 
-        WritableNativeMap result;
-        Cursor cursor = null;
-        ContentResolver cr = reactContext.getContentResolver();
-        Uri uri = ContentUris.withAppendedId(CalendarContract.Events.CONTENT_URI, Integer.parseInt(eventID));
+        List<SearchIndex.Match> matches = searchIndex.search(query, range[0], range[1], calendarIDs, limit);
+        ArrayList<String> eventIDs = new ArrayList<>(matches.size());
+        for (SearchIndex.Match match : matches) {
+            eventIDs.add(match.eventId);
+        }
+
+        HashMap<String, WritableNativeMap> found = serializeEventsByIds(eventIDs, fields);
+        WritableNativeArray results = new WritableNativeArray();
+        for (String eventID : eventIDs) {
+            WritableNativeMap event = found.get(eventID);
+            if (event != null) {
+                results.pushMap(event);
+            }
+        }
+        return results;
+    }
 
-        String selection = "((" + CalendarContract.Events.DELETED + " != 1))";
+    /**
+     * Finds one instance without expanding recurring series across all time.
+     * The provider expands every series over whatever window is queried, so
+     * the window is kept as tight as what we know allows: a day around
+     * {@code instanceStart} when given, otherwise windows that double in
+     * size around now, clamped to the parent event's first and last instance.
+     *
+     * @param eventID       the parent event, or null if not known
+     * @param instanceStart the instance's begin time, or null if not known
+     */
+    private WritableNativeMap findEventInstanceById(String instanceID, String eventID, Long instanceStart, EventFields fields) {
 
-        try {
-            cursor = cr.query(uri, new String[]{
-                    CalendarContract.Events._ID,
-                    CalendarContract.Events.TITLE,
-                    CalendarContract.Events.DESCRIPTION,
+        if (instanceStart != null) {
+            return findInstanceInWindow(instanceID, eventID, instanceStart - DAY_MILLIS, instanceStart + DAY_MILLIS, fields);
+        }
+
+        long now = System.currentTimeMillis();
+        long first = now - MAX_INSTANCE_SEARCH_MILLIS;
+        long last = now + MAX_INSTANCE_SEARCH_MILLIS;
+
+        if (eventID != null) {
+            Cursor cursor = query(ContentUris.withAppendedId(CalendarContract.Events.CONTENT_URI, Long.parseLong(eventID)), new String[]{
                     CalendarContract.Events.DTSTART,
-                    CalendarContract.Events.DTEND,
-                    CalendarContract.Events.ALL_DAY,
-                    CalendarContract.Events.EVENT_LOCATION,
-                    CalendarContract.Events.RRULE,
-                    CalendarContract.Events.CALENDAR_ID,
-                    CalendarContract.Events.AVAILABILITY,
-                    CalendarContract.Events.HAS_ALARM,
-                    CalendarContract.Instances.DURATION
-            }, selection, null, null);
+                    CalendarContract.Events.LAST_DATE,
+            }, null, null, null);
 
-            if (cursor.getCount() > 0) {
-                cursor.moveToFirst();
-                result = serializeEvent(cursor);
-            } else {
-                result = null;
+            if (cursor == null) {
+                return null;
             }
-        }
-        finally {
-            if(cursor != null) {
+            try {
+                if (!cursor.moveToFirst()) {
+                    return null;
+                }
+                if (!cursor.isNull(0)) {
+                    first = cursor.getLong(0);
+                }
+                // LAST_DATE is null for series without an end
+                last = cursor.isNull(1) ? Math.max(first, now) + MAX_INSTANCE_SEARCH_MILLIS : cursor.getLong(1);
+            } finally {
                 cursor.close();
-                cursor = null;
             }
         }
 
-        return result;
-    }
+        long anchor = Math.min(Math.max(now, first), last);
+        long searchedFrom = anchor;
+        long searchedTo = anchor;
 
-    private WritableNativeMap findEventInstanceById(String eventID) {
+        for (long half = INSTANCE_SEARCH_WINDOW_MILLIS; ; half *= 2) {
+            long from = Math.max(first, anchor - half);
+            long to = Math.min(last, anchor + half);
 
-        WritableNativeMap result;
-        Cursor cursor;
-        ContentResolver cr = reactContext.getContentResolver();
+            // after the first window only the slabs either side of what was searched are queried
+            WritableNativeMap result = null;
+            if (searchedFrom == searchedTo) {
+                result = findInstanceInWindow(instanceID, eventID, from, to, fields);
+            } else {
+                if (from < searchedFrom) {
+                    result = findInstanceInWindow(instanceID, eventID, from, searchedFrom, fields);
+                }
+                if (result == null && to > searchedTo) {
+                    result = findInstanceInWindow(instanceID, eventID, searchedTo, to, fields);
+                }
+            }
+
+            if (result != null || (from == first && to == last)) {
+                return result;
+            }
+            searchedFrom = from;
+            searchedTo = to;
+        }
+    }
 
+    private WritableNativeMap findInstanceInWindow(String instanceID, String eventID, long begin, long end, EventFields fields) {
         Uri.Builder uriBuilder = CalendarContract.Instances.CONTENT_URI.buildUpon();
-        ContentUris.appendId(uriBuilder, Long.MIN_VALUE);
-        ContentUris.appendId(uriBuilder, Long.MAX_VALUE);
+        ContentUris.appendId(uriBuilder, begin);
+        ContentUris.appendId(uriBuilder, end);
         Uri uri = uriBuilder.build();
 
-        String selection = "(Instances._ID = " + eventID + ")";
+        Selection selection = new Selection().equal("Instances." + CalendarContract.Instances._ID, instanceID);
+        if (eventID != null) {
+            selection.equal(CalendarContract.Instances.EVENT_ID, eventID);
+        }
 
-        cursor = cr.query(uri, new String[]{
+        Cursor cursor = query(uri, fields.project(new String[]{
                 CalendarContract.Instances._ID,
                 CalendarContract.Instances.TITLE,
                 CalendarContract.Instances.DESCRIPTION,
@@ -451,29 +1347,34 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
                 CalendarContract.Instances.ORIGINAL_ID,
                 CalendarContract.Instances.EVENT_ID,
                 CalendarContract.Instances.DURATION
-        }, selection, null, null);
+        }), selection.sql(), selection.args(), null);
 
-        if (cursor != null && cursor.moveToFirst()) {
-            result = serializeEvent(cursor);
-            cursor.close();
-        } else {
-            result = null;
+        WritableNativeMap result = null;
+        if (cursor != null) {
+            try {
+                if (cursor.moveToFirst()) {
+                    EventColumns columns = EventColumns.of(cursor, fields);
+                    EventRelations relations = findEventRelations(cursor, columns);
+                    cursor.moveToFirst();
+                    result = serializeEvent(cursor, relations, columns);
+                }
+            } finally {
+                cursor.close();
+            }
         }
 
         return result;
     }
 
-    private int addEvent(String title, ReadableMap details, ReadableMap options) throws ParseException {
-        String dateFormat = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
+    private Iso8601 eventDateFormat(ReadableMap details) {
         boolean skipTimezone = false;
         if(details.hasKey("skipAndroidTimezone") && details.getBoolean("skipAndroidTimezone")){
             skipTimezone = true;
         }
-        if(!skipTimezone){
-            sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
-        }
-        ContentResolver cr = reactContext.getContentResolver();
+        return skipTimezone ? Iso8601.LOCAL : Iso8601.UTC;
+    }
+
+    private ContentValues eventValues(String title, ReadableMap details, Iso8601 dates) throws ParseException {
         ContentValues eventValues = new ContentValues();
 
         if (title != null) {
@@ -489,13 +1390,11 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
         }
 
         if (details.hasKey("startDate")) {
-            Calendar startCal = Calendar.getInstance();
             ReadableType type = details.getType("startDate");
 
             try {
                 if (type == ReadableType.String) {
-                    startCal.setTime(sdf.parse(details.getString("startDate")));
-                    eventValues.put(CalendarContract.Events.DTSTART, startCal.getTimeInMillis());
+                    eventValues.put(CalendarContract.Events.DTSTART, dates.parse(details.getString("startDate")));
                 } else if (type == ReadableType.Number) {
                     eventValues.put(CalendarContract.Events.DTSTART, (long)details.getDouble("startDate"));
                 }
@@ -506,13 +1405,11 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
         }
 
         if (details.hasKey("endDate")) {
-            Calendar endCal = Calendar.getInstance();
             ReadableType type = details.getType("endDate");
 
             try {
                 if (type == ReadableType.String) {
-                    endCal.setTime(sdf.parse(details.getString("endDate")));
-                    eventValues.put(CalendarContract.Events.DTEND, endCal.getTimeInMillis());
+                    eventValues.put(CalendarContract.Events.DTEND, dates.parse(details.getString("endDate")));
                 } else if (type == ReadableType.Number) {
                     eventValues.put(CalendarContract.Events.DTEND, (long)details.getDouble("endDate"));
                 }
@@ -537,7 +1434,7 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
                 String duration = "PT1H";
                 Integer interval = null;
                 Integer occurrence = null;
-                String endDate = null;
+                Long endDate = null;
                 ReadableArray daysOfWeek = null;
                 String weekStart = null;
                 Integer weekPositionInMonth = null;
@@ -556,14 +1453,11 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
 
                 if (recurrenceRule.hasKey("endDate")) {
                     ReadableType type = recurrenceRule.getType("endDate");
-                    SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'");
 
                     if (type == ReadableType.String) {
-                        endDate = format.format(sdf.parse(recurrenceRule.getString("endDate")));
+                        endDate = dates.parse(recurrenceRule.getString("endDate"));
                     } else if (type == ReadableType.Number) {
-                        Calendar calendar = Calendar.getInstance();
-                        calendar.setTimeInMillis((long)recurrenceRule.getDouble("endDate"));
-                        endDate = format.format(calendar.getTime());
+                        endDate = (long)recurrenceRule.getDouble("endDate");
                     }
                 }
 
@@ -627,9 +1521,24 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
             eventValues.put(CalendarContract.Events.AVAILABILITY, availabilityConstantMatchingString(details.getString("availability")));
         }
 
+        return eventValues;
+    }
+
+    /**
+     * Writes the event and the attendee and reminder changes it needs with
+     * one applyBatch, so either all of them are saved or none is.
+     * @return the ID of the saved event, or -1 if it could not be saved
+     */
+    private int addEvent(String title, ReadableMap details, ReadableMap options) throws ParseException {
+        Iso8601 dates = eventDateFormat(details);
+        ContentResolver cr = reactContext.getContentResolver();
+        ContentValues eventValues = eventValues(title, details, dates);
+        EventBatch batch = new EventBatch();
+
         if (details.hasKey("id")) {
             int eventID = Integer.parseInt(details.getString("id"));
             WritableMap eventInstance = findEventById(details.getString("id"));
+            int exceptionIndex = -1;
 
             if (eventInstance != null) {
                 ReadableMap eventCalendar = eventInstance.getMap("calendar");
@@ -641,16 +1550,14 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
                         syncCalendar(cr, eventInstance.getMap("calendar").getString("id"));
                         updateUri = eventUriAsSyncAdapter(updateUri, eventCalendar.getString("source"), eventCalendar.getString("type"));
                     }
-                    cr.update(updateUri, eventValues, null, null);
+                    batch.add(ContentProviderOperation.newUpdate(updateUri).withValues(eventValues));
 
                 } else {
-                    Calendar exceptionStart = Calendar.getInstance();
                     ReadableType type = options.getType("exceptionDate");
 
                     try {
                         if (type == ReadableType.String) {
-                            exceptionStart.setTime(sdf.parse(options.getString("exceptionDate")));
-                            eventValues.put(CalendarContract.Events.ORIGINAL_INSTANCE_TIME, exceptionStart.getTimeInMillis());
+                            eventValues.put(CalendarContract.Events.ORIGINAL_INSTANCE_TIME, dates.parse(options.getString("exceptionDate")));
                         } else if (type == ReadableType.Number) {
                             eventValues.put(CalendarContract.Events.ORIGINAL_INSTANCE_TIME, (long) options.getDouble("exceptionDate"));
                         }
@@ -666,30 +1573,34 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
                         eventUriAsSyncAdapter(exceptionUri, eventCalendar.getString("source"), eventCalendar.getString("type"));
                     }
 
-                    try {
-                        Uri eventUri = cr.insert(exceptionUri, eventValues);
-                        if (eventUri != null) {
-                            eventID = Integer.parseInt(eventUri.getLastPathSegment());
-                        }
-                    } catch (Exception e) {
-                        Log.d(this.getName(), "Event exception error", e);
-                    }
+                    exceptionIndex = batch.nextIndex();
+                    batch.add(ContentProviderOperation.newInsert(exceptionUri).withValues(eventValues));
                 }
             }
 
+            long existingID = Long.parseLong(details.getString("id"));
             if (details.hasKey("alarms")) {
-                createRemindersForEvent(cr, Integer.parseInt(details.getString("id")), details.getArray("alarms"));
+                addChildRowChanges(batch, ChildRows.REMINDERS, existingID, reminderValues(details.getArray("alarms")));
             }
 
             if (details.hasKey("attendees")) {
-                createAttendeesForEvent(cr, Integer.parseInt(details.getString("id")), details.getArray("attendees"));
+                addChildRowChanges(batch, ChildRows.ATTENDEES, existingID, attendeeValues(details.getArray("attendees")));
             }
 
+            if (batch.isEmpty()) {
+                return eventID;
+            }
+            ContentProviderResult[] results = applyEventWrite(cr, batch);
+            if (results == null) {
+                return -1;
+            }
+            if (exceptionIndex != -1 && results[exceptionIndex].uri != null) {
+                eventID = Integer.parseInt(results[exceptionIndex].uri.getLastPathSegment());
+            }
             return eventID;
 
         } else {
             WritableNativeMap calendar;
-            int eventID = -1;
 
             if (details.hasKey("calendarId")) {
                 calendar = findCalendarById(details.getString("calendarId"));
@@ -713,29 +1624,39 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
                 createEventUri = eventUriAsSyncAdapter(CalendarContract.Events.CONTENT_URI, calendar.getString("source"), calendar.getString("type"));
             }
 
-            Uri eventUri = cr.insert(createEventUri, eventValues);
+            int eventIndex = batch.nextIndex();
+            batch.add(ContentProviderOperation.newInsert(createEventUri).withValues(eventValues));
 
-            if (eventUri != null) {
-                String rowId = eventUri.getLastPathSegment();
-                if (rowId != null) {
-                    eventID = Integer.parseInt(rowId);
-
-                    if (details.hasKey("alarms")) {
-                        createRemindersForEvent(cr, eventID, details.getArray("alarms"));
-                    }
+            if (details.hasKey("alarms")) {
+                batch.addChildren(ChildRows.REMINDERS, reminderValues(details.getArray("alarms")), eventIndex);
+            }
 
-                    if (details.hasKey("attendees")) {
-                        createAttendeesForEvent(cr, eventID, details.getArray("attendees"));
-                    }
-                    return eventID;
-                }
+            if (details.hasKey("attendees")) {
+                batch.addChildren(ChildRows.ATTENDEES, attendeeValues(details.getArray("attendees")), eventIndex);
+            }
 
+            ContentProviderResult[] results = applyEventWrite(cr, batch);
+            if (results == null || results[eventIndex].uri == null) {
+                return -1;
             }
-            return eventID;
+            String rowId = results[eventIndex].uri.getLastPathSegment();
+            return rowId != null ? Integer.parseInt(rowId) : -1;
         }
 
     }
 
+    /**
+     * @return the results, or null if the batch failed and nothing was written
+     */
+    private ContentProviderResult[] applyEventWrite(ContentResolver cr, EventBatch batch) {
+        try {
+            return batch.apply(cr);
+        } catch (Exception e) {
+            Log.d(this.getName(), "Event save error", e);
+            return null;
+        }
+    }
+
     private boolean removeEvent(String eventID, ReadableMap options) {
         int rows = 0;
 
@@ -755,16 +1676,11 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
 
             } else {
                 ContentValues eventValues = new ContentValues();
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-                sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
-
-                Calendar exceptionStart = Calendar.getInstance();
                 ReadableType type = options.getType("exceptionDate");
 
                 try {
                     if (type == ReadableType.String) {
-                        exceptionStart.setTime(sdf.parse(options.getString("exceptionDate")));
-                        eventValues.put(CalendarContract.Events.ORIGINAL_INSTANCE_TIME, exceptionStart.getTimeInMillis());
+                        eventValues.put(CalendarContract.Events.ORIGINAL_INSTANCE_TIME, Iso8601.UTC.parse(options.getString("exceptionDate")));
                     } else if (type == ReadableType.Number) {
                         eventValues.put(CalendarContract.Events.ORIGINAL_INSTANCE_TIME, (long) options.getDouble("exceptionDate"));
                     }
@@ -815,18 +1731,371 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     }
     //endregion
 
-    //region Attendees
-    private void createAttendeesForEvent(ContentResolver resolver, int eventID, ReadableArray attendees) {
-        Cursor cursor = CalendarContract.Attendees.query(resolver, eventID, new String[] {
-                CalendarContract.Attendees._ID
-        });
+    //region Batch Writes
+    private WritableNativeArray addEvents(ReadableArray detailsList, ReadableMap options) {
+        ContentResolver cr = reactContext.getContentResolver();
+        boolean sync = options.hasKey("sync") && options.getBoolean("sync");
+        int count = detailsList.size();
+        String[] ids = new String[count];
+        String[] errors = new String[count];
+
+        ArrayList<String> existingIDs = new ArrayList<>();
+        ArrayList<String> reminderIDs = new ArrayList<>();
+        ArrayList<String> attendeeIDs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ReadableMap details = detailsList.getMap(i);
+            if (details.hasKey("id")) {
+                existingIDs.add(details.getString("id"));
+                if (details.hasKey("alarms")) {
+                    reminderIDs.add(details.getString("id"));
+                }
+                if (details.hasKey("attendees")) {
+                    attendeeIDs.add(details.getString("id"));
+                }
+            }
+        }
+
+        HashMap<String, String> eventCalendars = findCalendarIdsForEvents(existingIDs);
+        HashMap<String, ArrayList<ContentValues>> existingReminders = findChildRows(ChildRows.REMINDERS, reminderIDs);
+        HashMap<String, ArrayList<ContentValues>> existingAttendees = findChildRows(ChildRows.ATTENDEES, attendeeIDs);
+        HashMap<String, WritableNativeMap> calendars = new HashMap<>();
+        HashSet<String> syncedCalendars = new HashSet<>();
+        EventBatch batch = new EventBatch();
+
+        for (int i = 0; i < count; i++) {
+            ReadableMap details = detailsList.getMap(i);
+            String eventID = details.hasKey("id") ? details.getString("id") : null;
+            ContentProviderOperation.Builder eventOperation;
+
+            try {
+                Iso8601 dates = eventDateFormat(details);
+                ContentValues eventValues = eventValues(details.hasKey("title") ? details.getString("title") : null, details, dates);
+
+                if (eventID != null) {
+                    String calendarID = eventCalendars.get(eventID);
+                    if (calendarID == null) {
+                        throw new Exception("event not exists");
+                    }
+                    WritableNativeMap calendar = calendarFor(calendars, calendarID);
+
+                    if (!options.hasKey("exceptionDate")) {
+                        Uri updateUri = ContentUris.withAppendedId(CalendarContract.Events.CONTENT_URI, Long.parseLong(eventID));
+
+                        if (sync && calendar != null) {
+                            syncCalendarOnce(cr, syncedCalendars, calendarID);
+                            updateUri = eventUriAsSyncAdapter(updateUri, calendar.getString("source"), calendar.getString("type"));
+                        }
+                        eventOperation = ContentProviderOperation.newUpdate(updateUri);
+                        ids[i] = eventID;
+                    } else {
+                        eventValues.put(CalendarContract.Events.ORIGINAL_INSTANCE_TIME, exceptionInstanceTime(options, dates));
+
+                        if (sync) {
+                            syncCalendarOnce(cr, syncedCalendars, calendarID);
+                        }
+                        eventOperation = ContentProviderOperation.newInsert(Uri.withAppendedPath(CalendarContract.Events.CONTENT_EXCEPTION_URI, eventID));
+                    }
+                } else {
+                    WritableNativeMap calendar;
+
+                    if (details.hasKey("calendarId")) {
+                        calendar = calendarFor(calendars, details.getString("calendarId"));
+
+                        if (calendar == null) {
+                            throw new Exception("calendar not exists");
+                        }
+                        eventValues.put(CalendarContract.Events.CALENDAR_ID, Integer.parseInt(calendar.getString("id")));
+                    } else {
+                        calendar = calendarFor(calendars, "1");
+                        eventValues.put(CalendarContract.Events.CALENDAR_ID, 1);
+                    }
+
+                    Uri createEventUri = CalendarContract.Events.CONTENT_URI;
+
+                    if (sync && calendar != null) {
+                        syncCalendarOnce(cr, syncedCalendars, calendar.getString("id"));
+                        createEventUri = eventUriAsSyncAdapter(createEventUri, calendar.getString("source"), calendar.getString("type"));
+                    }
+                    eventOperation = ContentProviderOperation.newInsert(createEventUri);
+                }
+
+                eventOperation.withValues(eventValues);
+            } catch (Exception e) {
+                ids[i] = null;
+                errors[i] = e.getMessage();
+                continue;
+            }
+
+            ArrayList<ContentValues> reminders = details.hasKey("alarms") ? reminderValues(details.getArray("alarms")) : null;
+            ArrayList<ContentValues> attendees = details.hasKey("attendees") ? attendeeValues(details.getArray("attendees")) : null;
+
+            // an existing event only gets the child row changes it needs
+            ArrayList<ContentProviderOperation.Builder> childOperations = new ArrayList<>();
+            int operationCount = 1;
+            if (eventID != null) {
+                long existingID = Long.parseLong(eventID);
+                if (reminders != null) {
+                    ChildRows.REMINDERS.diff(existingID, childRows(existingReminders, eventID), reminders, childOperations);
+                }
+                if (attendees != null) {
+                    ChildRows.ATTENDEES.diff(existingID, childRows(existingAttendees, eventID), attendees, childOperations);
+                }
+                operationCount += childOperations.size();
+            } else {
+                operationCount += (reminders != null ? reminders.size() : 0) + (attendees != null ? attendees.size() : 0);
+            }
+
+            if (!batch.fits(operationCount)) {
+                applyEventBatch(cr, batch, ids, errors);
+            }
 
-        while (cursor.moveToNext()) {
-            long attendeeId = cursor.getLong(0);
-            Uri attendeeUri = ContentUris.withAppendedId(CalendarContract.Attendees.CONTENT_URI, attendeeId);
-            resolver.delete(attendeeUri, null, null);
+            int eventIndex = batch.nextIndex();
+            batch.add(eventOperation);
+            batch.addItem(i, eventIndex);
+
+            for (ContentProviderOperation.Builder operation : childOperations) {
+                batch.add(operation);
+            }
+            if (eventID == null && reminders != null) {
+                batch.addChildren(ChildRows.REMINDERS, reminders, eventIndex);
+            }
+            if (eventID == null && attendees != null) {
+                batch.addChildren(ChildRows.ATTENDEES, attendees, eventIndex);
+            }
+        }
+
+        applyEventBatch(cr, batch, ids, errors);
+
+        WritableNativeArray results = new WritableNativeArray();
+        for (int i = 0; i < count; i++) {
+            WritableNativeMap result = new WritableNativeMap();
+            if (ids[i] != null) {
+                result.putString("id", ids[i]);
+            } else {
+                result.putString("error", errors[i] != null ? errors[i] : "Unable to save event");
+            }
+            results.pushMap(result);
+        }
+
+        return results;
+    }
+
+    private static List<ContentValues> childRows(HashMap<String, ArrayList<ContentValues>> rows, String eventID) {
+        ArrayList<ContentValues> eventRows = rows.get(eventID);
+        return eventRows != null ? eventRows : Collections.<ContentValues>emptyList();
+    }
+
+    private void applyEventBatch(ContentResolver cr, EventBatch batch, String[] ids, String[] errors) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            ContentProviderResult[] results = batch.apply(cr);
+
+            for (int i = 0; i < batch.itemCount(); i++) {
+                int item = batch.item(i);
+                ContentProviderResult result = results[batch.resultIndex(i)];
+
+                if (result.uri != null) {
+                    ids[item] = result.uri.getLastPathSegment();
+                } else if (result.count == null || result.count == 0) {
+                    ids[item] = null;
+                    errors[item] = "Unable to save event";
+                }
+            }
+        } catch (Exception e) {
+            Log.d(this.getName(), "Event batch error", e);
+            for (int i = 0; i < batch.itemCount(); i++) {
+                ids[batch.item(i)] = null;
+                errors[batch.item(i)] = e.getMessage();
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private WritableNativeArray removeEvents(ReadableArray eventIDs, ReadableMap options) {
+        ContentResolver cr = reactContext.getContentResolver();
+        boolean sync = options.hasKey("sync") && options.getBoolean("sync");
+        int count = eventIDs.size();
+        boolean[] removed = new boolean[count];
+
+        ArrayList<String> ids = strings(eventIDs);
+
+        ContentValues exceptionValues = null;
+        if (options.hasKey("exceptionDate")) {
+            exceptionValues = new ContentValues();
+            try {
+                exceptionValues.put(CalendarContract.Events.ORIGINAL_INSTANCE_TIME, exceptionInstanceTime(options, Iso8601.UTC));
+            } catch (ParseException e) {
+                e.printStackTrace();
+                ids.clear();
+            }
+            exceptionValues.put(CalendarContract.Events.STATUS, CalendarContract.Events.STATUS_CANCELED);
+        }
+
+        HashMap<String, String> eventCalendars = findCalendarIdsForEvents(ids);
+        HashMap<String, WritableNativeMap> calendars = new HashMap<>();
+        HashSet<String> syncedCalendars = new HashSet<>();
+        EventBatch batch = new EventBatch();
+
+        for (int i = 0; i < ids.size(); i++) {
+            String eventID = ids.get(i);
+            String calendarID = eventCalendars.get(eventID);
+            if (calendarID == null) {
+                continue;
+            }
+            WritableNativeMap calendar = calendarFor(calendars, calendarID);
+            ContentProviderOperation.Builder operation;
+
+            if (exceptionValues == null) {
+                Uri uri = ContentUris.withAppendedId(CalendarContract.Events.CONTENT_URI, Long.parseLong(eventID));
+
+                if (sync && calendar != null) {
+                    syncCalendarOnce(cr, syncedCalendars, calendarID);
+                    uri = eventUriAsSyncAdapter(uri, calendar.getString("source"), calendar.getString("type"));
+                }
+                operation = ContentProviderOperation.newDelete(uri);
+            } else {
+                Uri uri = Uri.withAppendedPath(CalendarContract.Events.CONTENT_EXCEPTION_URI, eventID);
+
+                if (sync && calendar != null) {
+                    uri = eventUriAsSyncAdapter(uri, calendar.getString("source"), calendar.getString("type"));
+                }
+                operation = ContentProviderOperation.newInsert(uri).withValues(exceptionValues);
+            }
+
+            if (!batch.fits(1)) {
+                applyRemoveBatch(cr, batch, removed);
+            }
+            batch.addItem(i, batch.nextIndex());
+            batch.add(operation);
+        }
+
+        applyRemoveBatch(cr, batch, removed);
+
+        WritableNativeArray results = new WritableNativeArray();
+        for (boolean successful : removed) {
+            results.pushBoolean(successful);
+        }
+
+        return results;
+    }
+
+    private void applyRemoveBatch(ContentResolver cr, EventBatch batch, boolean[] removed) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            ContentProviderResult[] results = batch.apply(cr);
+
+            for (int i = 0; i < batch.itemCount(); i++) {
+                ContentProviderResult result = results[batch.resultIndex(i)];
+                removed[batch.item(i)] = result.uri != null || (result.count != null && result.count > 0);
+            }
+        } catch (Exception e) {
+            Log.d(this.getName(), "Event batch error", e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private HashMap<String, String> findCalendarIdsForEvents(Collection<String> eventIDs) {
+        HashMap<String, String> results = new HashMap<>();
+
+        for (String[] chunk : Selection.chunk(new LinkedHashSet<>(eventIDs))) {
+            Selection selection = new Selection()
+                    .where(CalendarContract.Events.DELETED + " != 1")
+                    .in(CalendarContract.Events._ID, chunk);
+            Cursor cursor = query(CalendarContract.Events.CONTENT_URI, new String[]{
+                    CalendarContract.Events._ID,
+                    CalendarContract.Events.CALENDAR_ID
+            }, selection.sql(), selection.args(), null);
+            if (cursor == null) {
+                continue;
+            }
+            try {
+                while (cursor.moveToNext()) {
+                    results.put(cursor.getString(0), cursor.getString(1));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        return results;
+    }
+
+    private WritableNativeMap calendarFor(HashMap<String, WritableNativeMap> calendars, String calendarID) {
+        if (!calendars.containsKey(calendarID)) {
+            calendars.put(calendarID, findCalendarById(calendarID));
+        }
+        return calendars.get(calendarID);
+    }
+
+    private static void syncCalendarOnce(ContentResolver cr, HashSet<String> syncedCalendars, String calendarID) {
+        if (syncedCalendars.add(calendarID)) {
+            syncCalendar(cr, calendarID);
+        }
+    }
+
+    private static long exceptionInstanceTime(ReadableMap options, Iso8601 dates) throws ParseException {
+        if (options.getType("exceptionDate") == ReadableType.String) {
+            return dates.parse(options.getString("exceptionDate"));
+        }
+        return (long) options.getDouble("exceptionDate");
+    }
+    //endregion
+
+    //region Child Rows
+    /**
+     * Adds only the attendee or reminder changes an existing event needs.
+     */
+    private void addChildRowChanges(EventBatch batch, ChildRows kind, long eventID, ArrayList<ContentValues> desired) {
+        String id = Long.toString(eventID);
+        ArrayList<ContentProviderOperation.Builder> operations = new ArrayList<>();
+        kind.diff(eventID, childRows(findChildRows(kind, Collections.singletonList(id)), id), desired, operations);
+        for (ContentProviderOperation.Builder operation : operations) {
+            batch.add(operation);
         }
-        cursor.close();
+    }
+
+    /**
+     * The attendee or reminder rows of each event, keyed by event ID.
+     */
+    private HashMap<String, ArrayList<ContentValues>> findChildRows(ChildRows kind, Collection<String> eventIDs) {
+        HashMap<String, ArrayList<ContentValues>> results = new HashMap<>();
+
+        for (String[] chunk : Selection.chunk(new LinkedHashSet<>(eventIDs))) {
+            Selection selection = new Selection().in(kind.eventIdColumn, chunk);
+            Cursor cursor = query(kind.uri, kind.projection(), selection.sql(), selection.args(), null);
+            if (cursor == null) {
+                continue;
+            }
+            try {
+                while (cursor.moveToNext()) {
+                    String eventID = cursor.getString(1);
+                    ArrayList<ContentValues> rows = results.get(eventID);
+                    if (rows == null) {
+                        rows = new ArrayList<>();
+                        results.put(eventID, rows);
+                    }
+                    rows.add(kind.read(cursor));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        return results;
+    }
+    //endregion
+
+    //region Attendees
+    private ArrayList<ContentValues> attendeeValues(ReadableArray attendees) {
+        ArrayList<ContentValues> results = new ArrayList<>();
 
         for (int i = 0; i < attendees.size(); i++) {
             ReadableMap attendee = attendees.getMap(i);
@@ -834,43 +2103,23 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
             ReadableType fNameType = attendee.getType("firstName");
             if (type == ReadableType.String) {
                 ContentValues attendeeValues = new ContentValues();
-                attendeeValues.put(CalendarContract.Attendees.EVENT_ID, eventID);
                 attendeeValues.put(CalendarContract.Attendees.ATTENDEE_EMAIL, attendee.getString("url"));
                 attendeeValues.put(CalendarContract.Attendees.ATTENDEE_RELATIONSHIP, CalendarContract.Attendees.RELATIONSHIP_ATTENDEE);
 
                 if (fNameType == ReadableType.String) {
                     attendeeValues.put(CalendarContract.Attendees.ATTENDEE_NAME, attendee.getString("firstName"));
                 }
-                resolver.insert(CalendarContract.Attendees.CONTENT_URI, attendeeValues);
+                results.add(attendeeValues);
             }
         }
+
+        return results;
     }
     //endregion
 
-    //region Reminders
-    private void createRemindersForEvent(ContentResolver resolver, int eventID, ReadableArray reminders) {
-        Cursor cursor = null;
-
-        if (resolver != null) {
-            cursor = CalendarContract.Reminders.query(resolver, eventID, new String[] {
-                CalendarContract.Reminders._ID
-            });
-        }
-
-        while (cursor != null && cursor.moveToNext()) {
-            Uri reminderUri = null;
-            long reminderId = cursor.getLong(0);
-            if (reminderId > 0) {
-                reminderUri = ContentUris.withAppendedId(CalendarContract.Reminders.CONTENT_URI, reminderId);
-            }
-            if (reminderUri != null) {
-                resolver.delete(reminderUri, null, null);
-            }
-        }
-
-        if (cursor != null) {
-            cursor.close();
-        }
+    //region Reminders
+    private ArrayList<ContentValues> reminderValues(ReadableArray reminders) {
+        ArrayList<ContentValues> results = new ArrayList<>();
 
         for (int i = 0; i < reminders.size(); i++) {
             ReadableMap reminder = reminders.getMap(i);
@@ -879,51 +2128,16 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
                 int minutes = reminder.getInt("date");
                 ContentValues reminderValues = new ContentValues();
 
-                reminderValues.put(CalendarContract.Reminders.EVENT_ID, eventID);
                 reminderValues.put(CalendarContract.Reminders.MINUTES, minutes);
                 reminderValues.put(CalendarContract.Reminders.METHOD, CalendarContract.Reminders.METHOD_ALERT);
 
-                resolver.insert(CalendarContract.Reminders.CONTENT_URI, reminderValues);
-            }
-        }
-    }
-
-    private WritableNativeArray findReminderByEventId(String eventID, long startDate) {
-
-        WritableNativeArray results = new WritableNativeArray();
-        ContentResolver cr = reactContext.getContentResolver();
-        String selection = "(" + CalendarContract.Reminders.EVENT_ID + " = ?)";
-
-        Cursor cursor = cr.query(CalendarContract.Reminders.CONTENT_URI, new String[]{
-                CalendarContract.Reminders.MINUTES
-        }, selection, new String[] {eventID}, null);
-
-        while (cursor != null && cursor.moveToNext()) {
-            WritableNativeMap alarm = new WritableNativeMap();
-
-            Calendar cal = Calendar.getInstance();
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-            sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
-            cal.setTimeInMillis(startDate);
-            int minutes;
-            try {
-                minutes = cursor.getInt(0);
-            } catch (Exception e) {
-                Log.d(this.getName(), "Error parsing event minutes", e);
-                continue;
+                results.add(reminderValues);
             }
-
-            cal.add(Calendar.MINUTE, minutes);
-            alarm.putString("date", sdf.format(cal.getTime()));
-            results.pushMap(alarm);
-        }
-
-        if (cursor != null) {
-            cursor.close();
         }
 
         return results;
     }
+
     //endregion
 
     //region Availability
@@ -946,19 +2160,6 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
         return availabilitiesStrings;
     }
 
-    private String availabilityStringMatchingConstant(Integer constant)
-    {
-        switch(constant) {
-            case CalendarContract.Events.AVAILABILITY_BUSY:
-            default:
-                return "busy";
-            case CalendarContract.Events.AVAILABILITY_FREE:
-                return "free";
-            case CalendarContract.Events.AVAILABILITY_TENTATIVE:
-                return "tentative";
-        }
-    }
-
     private Integer availabilityConstantMatchingString(String string) throws IllegalArgumentException {
         if (string.equals("free")){
             return CalendarContract.Events.AVAILABILITY_FREE;
@@ -972,175 +2173,158 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     }
     //endregion
 
-    private String ReadableArrayToString (ReadableArray strArr) {
-        ArrayList<Object> array = strArr.toArrayList();
-        StringBuilder strBuilder = new StringBuilder();
-        for (int i = 0; i < array.size(); i++) {
-            strBuilder.append(array.get(i).toString() + ',');
-        }
-        String newString = strBuilder.toString();
-        newString = newString.substring(0, newString.length() - 1);
-        return newString;
-    }
-
     //region Recurrence Rule
-    private String createRecurrenceRule(String recurrence, Integer interval, String endDate, Integer occurrence, ReadableArray daysOfWeek, String weekStart, Integer weekPositionInMonth) {
-        String rrule;
-
-        if (recurrence.equals("daily")) {
-            rrule=  "FREQ=DAILY";
-        } else if (recurrence.equals("weekly")) {
-            rrule = "FREQ=WEEKLY";
-        }  else if (recurrence.equals("monthly")) {
-            rrule = "FREQ=MONTHLY";
-        } else if (recurrence.equals("yearly")) {
-            rrule = "FREQ=YEARLY";
-        } else {
+    private String createRecurrenceRule(String recurrence, Integer interval, Long endDate, Integer occurrence, ReadableArray daysOfWeek, String weekStart, Integer weekPositionInMonth) {
+        String frequency = RecurrenceRule.frequency(recurrence);
+        if (frequency == null || !Arrays.asList("daily", "weekly", "monthly", "yearly").contains(frequency)) {
             return null;
         }
 
-        if (daysOfWeek != null && recurrence.equals("weekly")) {
-            rrule += ";BYDAY=" + ReadableArrayToString(daysOfWeek);
-        }
-
-        if (recurrence.equals("monthly") && daysOfWeek != null && weekPositionInMonth != null) {
-            rrule += ";BYSETPOS=" + weekPositionInMonth;
-            rrule += ";BYDAY=" + ReadableArrayToString(daysOfWeek);
-        }
-
-        if (weekStart != null) {
-            rrule += ";WKST=" + weekStart;
-        }
-
-        if (interval != null) {
-            rrule += ";INTERVAL=" + interval;
-        }
-
-        if (endDate != null) {
-            rrule += ";UNTIL=" + endDate;
-        } else if (occurrence != null) {
-            rrule += ";COUNT=" + occurrence;
+        String[] days = null;
+        if (daysOfWeek != null) {
+            days = new String[daysOfWeek.size()];
+            for (int i = 0; i < days.length; i++) {
+                days[i] = daysOfWeek.getString(i);
+            }
         }
 
-        return rrule;
+        return new RecurrenceRule(frequency,
+                interval != null ? interval : 0,
+                occurrence != null ? occurrence : 0,
+                endDate != null ? endDate : RecurrenceRule.NO_UNTIL,
+                days,
+                weekPositionInMonth != null ? weekPositionInMonth : 0,
+                weekStart).toString();
     }
+
     //endregion
 
     // region Serialize Events
-    private WritableNativeArray serializeEvents(Cursor cursor) {
+    private WritableNativeArray serializeEvents(Cursor cursor, EventFields fields) {
         WritableNativeArray results = new WritableNativeArray();
         if (cursor != null) {
-            while (cursor.moveToNext()) {
-                results.pushMap(serializeEvent(cursor));
-            }
+            try {
+                EventColumns columns = EventColumns.of(cursor, fields);
+                EventRelations relations = findEventRelations(cursor, columns);
 
-            cursor.close();
+                cursor.moveToPosition(-1);
+                while (cursor.moveToNext()) {
+                    results.pushMap(serializeEvent(cursor, relations, columns));
+                }
+            } finally {
+                cursor.close();
+            }
         }
 
         return results;
     }
 
-    private WritableNativeMap serializeEvent(Cursor cursor) {
-        WritableNativeMap event = new WritableNativeMap();
-
-        String dateFormat = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
-        SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-        sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+    private WritableNativeMap serializeEventsColumnar(Cursor cursor, EventFields fields) {
+        ColumnarEvents results = new ColumnarEvents();
+        EventWriter writer = metrics.count(results);
+        if (cursor != null) {
+            try {
+                EventColumns columns = EventColumns.of(cursor, fields);
+                EventRelations relations = findEventRelations(cursor, columns);
 
-        Calendar foundStartDate = Calendar.getInstance();
-        Calendar foundEndDate = Calendar.getInstance();
+                cursor.moveToPosition(-1);
+                while (cursor.moveToNext()) {
+                    results.startRow();
+                    writeEvent(cursor, relations, columns, writer);
+                }
+            } finally {
+                cursor.close();
+            }
+        }
 
-        boolean allDay = false;
-        String startDateUTC = "";
-        String endDateUTC = "";
+        return results.result();
+    }
 
-        if (cursor.getString(3) != null) {
-            foundStartDate.setTimeInMillis(Long.parseLong(cursor.getString(3)));
-            startDateUTC = sdf.format(foundStartDate.getTime());
-        }
+    /**
+     * @return the {@link BinaryEvents} layout, base64 encoded since the bridge
+     * only carries strings
+     */
+    private String serializeEventsBinary(Cursor cursor, EventFields fields) {
+        BinaryEvents results = new BinaryEvents();
+        if (cursor != null) {
+            try {
+                EventColumns columns = EventColumns.of(cursor, fields);
+                EventRelations relations = findEventRelations(cursor, columns);
 
-        if (cursor.getString(4) != null) {
-            foundEndDate.setTimeInMillis(Long.parseLong(cursor.getString(4)));
-            endDateUTC = sdf.format(foundEndDate.getTime());
+                cursor.moveToPosition(-1);
+                while (cursor.moveToNext()) {
+                    results.startRow();
+                    writeEvent(cursor, relations, columns, results);
+                }
+            } finally {
+                cursor.close();
+            }
         }
 
-        if (cursor.getString(5) != null) {
-            allDay = cursor.getInt(5) != 0;
-        }
+        String encoded = Base64.encodeToString(results.result(), Base64.NO_WRAP);
+        metrics.bytes(encoded.length());
+        return encoded;
+    }
 
-        if (cursor.getString(7) != null) {
-            WritableNativeMap recurrenceRule = new WritableNativeMap();
-            String[] recurrenceRules = cursor.getString(7).split(";");
-            SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'");
+    /**
+     * Serializes the cursor {@code chunkSize} rows at a time and emits every chunk
+     * as soon as it is ready, so only one chunk is held in memory.
+     * @return the number of events emitted
+     */
+    private int streamEvents(Cursor cursor, String streamId, int chunkSize, EventFields fields) {
+        int position = 0;
 
-            if (recurrenceRules.length > 0 && recurrenceRules[0].split("=").length > 1) {
-                event.putString("recurrence", recurrenceRules[0].split("=")[1].toLowerCase());
-                recurrenceRule.putString("frequency", recurrenceRules[0].split("=")[1].toLowerCase());
-            }
+        if (cursor == null) {
+            return position;
+        }
 
-            if (cursor.getColumnIndex(CalendarContract.Events.DURATION) != -1 && cursor.getString(cursor.getColumnIndex(CalendarContract.Events.DURATION)) != null) {
-                recurrenceRule.putString("duration", cursor.getString(cursor.getColumnIndex(CalendarContract.Events.DURATION)));
-            }
+        try {
+            EventColumns columns = EventColumns.of(cursor, fields);
 
-            if (recurrenceRules.length >= 2 && recurrenceRules[1].split("=")[0].equals("INTERVAL")) {
-                recurrenceRule.putInt("interval", Integer.parseInt(recurrenceRules[1].split("=")[1]));
-            }
+            for (int index = 0; ; index++) {
+                EventRelations relations = findEventRelations(cursor, columns, position, chunkSize);
+                WritableNativeArray events = new WritableNativeArray();
+                int rows = 0;
 
-            if (recurrenceRules.length >= 3) {
-                if (recurrenceRules[2].split("=")[0].equals("UNTIL")) {
-                    try {
-                        recurrenceRule.putString("endDate", sdf.format(format.parse(recurrenceRules[2].split("=")[1])));
-                    } catch (ParseException e) {
-                        e.printStackTrace();
-                    }
-                } else if (recurrenceRules[2].split("=")[0].equals("COUNT")) {
-                    recurrenceRule.putInt("occurrence", Integer.parseInt(recurrenceRules[2].split("=")[1]));
+                cursor.moveToPosition(position - 1);
+                while (rows < chunkSize && cursor.moveToNext()) {
+                    events.pushMap(serializeEvent(cursor, relations, columns));
+                    rows++;
                 }
 
-            }
-
-            event.putMap("recurrenceRule", recurrenceRule);
-        }
-
-        event.putString("id", cursor.getString(0));
-        event.putMap("calendar", findCalendarById(cursor.getString(cursor.getColumnIndex("calendar_id"))));
-        event.putString("title", cursor.getString(cursor.getColumnIndex("title")));
-        event.putString("description", cursor.getString(2));
-        event.putString("startDate", startDateUTC);
-        event.putString("endDate", endDateUTC);
-        event.putBoolean("allDay", allDay);
-        event.putString("location", cursor.getString(6));
-        event.putString("availability", availabilityStringMatchingConstant(cursor.getInt(9)));
-        event.putArray("attendees", (WritableArray) findAttendeesByEventId(cursor.getString(0)));
+                if (rows == 0) {
+                    break;
+                }
 
-        if (cursor.getInt(10) > 0) {
-            event.putArray("alarms", findReminderByEventId(cursor.getString(0), Long.parseLong(cursor.getString(3))));
-        } else {
-            WritableNativeArray emptyAlarms = new WritableNativeArray();
-            event.putArray("alarms", emptyAlarms);
-        }
+                WritableNativeMap chunk = new WritableNativeMap();
+                chunk.putString("streamId", streamId);
+                chunk.putInt("index", index);
+                chunk.putArray("events", events);
+                reactContext
+                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit(STREAM_EVENT, chunk);
 
-        if (cursor.getColumnIndex(CalendarContract.Events.ORIGINAL_ID) != -1 && cursor.getString(cursor.getColumnIndex(CalendarContract.Events.ORIGINAL_ID)) != null) {
-            event.putString("originalId", cursor.getString(cursor.getColumnIndex(CalendarContract.Events.ORIGINAL_ID)));
+                position += rows;
+                if (rows < chunkSize) {
+                    break;
+                }
+            }
+        } finally {
+            cursor.close();
         }
 
-        if (cursor.getColumnIndex(CalendarContract.Instances.ORIGINAL_SYNC_ID) != -1 && cursor.getString(cursor.getColumnIndex(CalendarContract.Instances.ORIGINAL_SYNC_ID)) != null) {
-            event.putString("syncId", cursor.getString(cursor.getColumnIndex(CalendarContract.Instances.ORIGINAL_SYNC_ID)));
-        }
+        return position;
+    }
 
+    private WritableNativeMap serializeEvent(Cursor cursor, EventRelations relations, EventColumns columns) {
+        WritableNativeMap event = new WritableNativeMap();
+        writeEvent(cursor, relations, columns, metrics.count(new EventWriter.MapWriter(event)));
         return event;
     }
 
-    private WritableNativeArray serializeEventCalendars(Cursor cursor) {
-        WritableNativeArray results = new WritableNativeArray();
-
-        while (cursor.moveToNext()) {
-            results.pushMap(serializeEventCalendar(cursor));
-        }
-
-        cursor.close();
-
-        return results;
+    private void writeEvent(Cursor cursor, EventRelations relations, EventColumns columns, EventWriter event) {
+        requests.throwIfCanceled();
+        EventSerializer.write(cursor, relations, columns, event);
     }
 
     private WritableNativeMap serializeEventCalendar(Cursor cursor) {
@@ -1179,25 +2363,19 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
         return calendar;
     }
 
-    private WritableNativeArray serializeAttendeeCalendar(Cursor cursor) {
-
-        WritableNativeArray results = new WritableNativeArray();
-
-        for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+    private WritableNativeMap serializeAttendee(Cursor cursor) {
 
-            WritableNativeMap attendee = new WritableNativeMap();
+        WritableNativeMap attendee = new WritableNativeMap();
 
-            attendee.putString("name", cursor.getString( 2));
-            attendee.putString("email", cursor.getString(3));
-            attendee.putString("type", cursor.getString(4));
-            attendee.putString("relationship", cursor.getString(5));
-            attendee.putString("status", cursor.getString(6));
-            attendee.putString("identity", cursor.getString(7));
-            attendee.putString("id_namespace", cursor.getString(8));
-            results.pushMap(attendee);
-        }
+        attendee.putString("name", cursor.getString( 2));
+        attendee.putString("email", cursor.getString(3));
+        attendee.putString("type", cursor.getString(4));
+        attendee.putString("relationship", cursor.getString(5));
+        attendee.putString("status", cursor.getString(6));
+        attendee.putString("identity", cursor.getString(7));
+        attendee.putString("id_namespace", cursor.getString(8));
 
-        return results;
+        return attendee;
     }
     // endregion
 
@@ -1234,14 +2412,12 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     public void findCalendars(final Promise promise) {
         if (this.haveCalendarReadWritePermissions()) {
             try {
-                Thread thread = new Thread(new Runnable(){
+                readShared("findCalendars", "findCalendars", "calendar request error", null, promise, new SingleFlight.Read(){
                     @Override
-                    public void run() {
-                        WritableArray calendars = findEventCalendars();
-                        promise.resolve(calendars);
+                    public Object run() {
+                        return findEventCalendars();
                     }
                 });
-                thread.start();
             } catch (Exception e) {
                 promise.reject("calendar request error", e.getMessage());
             }
@@ -1257,18 +2433,18 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
             return;
         }
         try {
-            Thread thread = new Thread(new Runnable(){
+            write("saveCalendar", "save calendar error", null, promise, new Runnable(){
                 @Override
                 public void run() {
                     try {
                         Integer calendarID = addCalendar(options);
                         promise.resolve(calendarID.toString());
                     } catch (Exception e) {
+                        metrics.failed();
                         promise.reject("save calendar error", e.getMessage());
                     }
                 }
             });
-            thread.start();
         } catch (Exception e) {
             promise.reject("save calendar error", "Calendar could not be saved", e);
         }
@@ -1278,14 +2454,13 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     public void removeCalendar(final String CalendarID, final Promise promise) {
         if (this.haveCalendarReadWritePermissions()) {
             try {
-                Thread thread = new Thread(new Runnable(){
+                write("removeCalendar", "remove calendar error", null, promise, new Runnable(){
                     @Override
                     public void run() {
                         boolean successful = removeCalendar(CalendarID);
                         promise.resolve(successful);
                     }
                 });
-                thread.start();
 
             } catch (Exception e) {
                 promise.reject("error removing calendar", e.getMessage());
@@ -1300,7 +2475,7 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     public void saveEvent(final String title, final ReadableMap details, final ReadableMap options, final Promise promise) {
         if (this.haveCalendarReadWritePermissions()) {
             try {
-                Thread thread = new Thread(new Runnable(){
+                write("saveEvent", "add event error", details.hasKey("id") ? Collections.singletonList(details.getString("id")) : Collections.<String>emptyList(), promise, new Runnable(){
                     @Override
                     public void run() {
                         int eventId;
@@ -1309,14 +2484,15 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
                             if (eventId > -1) {
                                 promise.resolve(Integer.toString(eventId));
                             } else {
+                                metrics.failed();
                                 promise.reject("add event error", "Unable to save event");
                             }
                         } catch (ParseException e) {
+                            metrics.failed();
                             promise.reject("add event error", e.getMessage());
                         }
                     }
                 });
-                thread.start();
             } catch (Exception e) {
                 promise.reject("add event error", e.getMessage());
             }
@@ -1329,23 +2505,12 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     public void saveEvents(final ReadableArray detailsList, final ReadableMap options, final Promise promise) {
         if (this.haveCalendarReadWritePermissions()) {
             try {
-                Thread thread = new Thread(new Runnable(){
+                write("saveEvents", "add event error", eventIds(detailsList), promise, new Runnable(){
                     @Override
                     public void run() {
-                        WritableNativeArray res = new WritableNativeArray();
-                        for(int i = 0; i < detailsList.size(); i++) {
-                            ReadableMap details = detailsList.getMap(i);
-                            try {
-                                int eventId = addEvent(details.getString("title"), details, options);
-                                res.pushString(String.valueOf(eventId));
-                            } catch (ParseException e) {
-                                // skip
-                            }
-                        }
-                        promise.resolve(res);
+                        promise.resolve(addEvents(detailsList, options));
                     }
                 });
-                thread.start();
             } catch (Exception e) {
                 promise.reject("add event error", e.getMessage());
             }
@@ -1355,18 +2520,238 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     }
 
     @ReactMethod
-    public void findAllEvents(final Dynamic startDate, final Dynamic endDate, final ReadableArray calendars, final Promise promise) {
+    public void findAllEvents(final Dynamic startDate, final Dynamic endDate, final ReadableArray calendars, final ReadableMap options, final Promise promise) {
+
+        if (this.haveCalendarReadWritePermissions()) {
+            try {
+                if (options.hasKey("since")) {
+                    // not shared, the key would have to hold every hash the caller sent
+                    read("findAllEvents", "find event error", options, promise, new Runnable(){
+                        @Override
+                        public void run() {
+                            promise.resolve(findEventsSince(startDate, endDate, calendars, EventFields.from(options), options.getDynamic("since")));
+                        }
+                    });
+                    return;
+                }
+
+                long[] range = dateRange(startDate, endDate);
+                String key = "findAllEvents:" + range[0] + ":" + range[1]
+                        + ":" + TextUtils.join(",", calendars.toArrayList())
+                        + ":" + EventFields.from(options).key()
+                        + ":" + (columnar(options) ? "columnar" : binary(options) ? "binary" : "objects")
+                        + ":" + cacheResults(options) + ":" + readPriority(options);
+
+                readShared("findAllEvents", key, "find event error", options, promise, new SingleFlight.Read(){
+                    @Override
+                    public Object run() {
+                        EventFields fields = EventFields.from(options);
+                        if (columnar(options)) {
+                            return serializeEventsColumnar(queryEvents(startDate, endDate, calendars, fields), fields.withEpochDates());
+                        }
+                        if (binary(options)) {
+                            return serializeEventsBinary(queryEvents(startDate, endDate, calendars, fields), fields.withEpochDates());
+                        }
+
+                        return cacheResults(options)
+                                ? findEventsCached(startDate, endDate, calendars, fields)
+                                : findEvents(startDate, endDate, calendars, fields);
+                    }
+                });
+
+            } catch (Exception e) {
+                promise.reject("find event error", e.getMessage());
+            }
+        } else {
+            promise.reject("find event error", "you don't have permissions to read an event from the users calendar");
+        }
+
+    }
+
+    @ReactMethod
+    public void streamAllEvents(final Dynamic startDate, final Dynamic endDate, final ReadableArray calendars, final ReadableMap options, final Promise promise) {
+        if (this.haveCalendarReadWritePermissions()) {
+            try {
+                read("streamAllEvents", "find event error", options, promise, new Runnable(){
+                    @Override
+                    public void run() {
+                        String streamId = options.hasKey("streamId") ? options.getString("streamId") : null;
+                        int chunkSize = options.hasKey("chunkSize") ? Math.max(1, options.getInt("chunkSize")) : DEFAULT_STREAM_CHUNK_SIZE;
+
+                        EventFields fields = EventFields.from(options);
+                        int count = streamEvents(queryEvents(startDate, endDate, calendars, fields), streamId, chunkSize, fields);
+
+                        WritableNativeMap result = new WritableNativeMap();
+                        result.putString("streamId", streamId);
+                        result.putInt("count", count);
+                        promise.resolve(result);
+                    }
+                });
+
+            } catch (Exception e) {
+                promise.reject("find event error", e.getMessage());
+            }
+        } else {
+            promise.reject("find event error", "you don't have permissions to read an event from the users calendar");
+        }
+
+    }
+
+    /**
+     * Finds the events whose title, description, location or attendees
+     * contain every word of the query, ranked by where and how often they do.
+     */
+    @ReactMethod
+    public void searchEvents(final String query, final Dynamic startDate, final Dynamic endDate, final ReadableArray calendars, final ReadableMap options, final Promise promise) {
+        if (this.haveCalendarReadWritePermissions()) {
+            try {
+                read("searchEvents", "search event error", options, promise, new Runnable(){
+                    @Override
+                    public void run() {
+                        int limit = options.hasKey("limit") ? Math.max(1, options.getInt("limit")) : DEFAULT_SEARCH_LIMIT;
+                        promise.resolve(searchEvents(query, startDate, endDate, calendars, limit, EventFields.from(options)));
+                    }
+                });
+
+            } catch (Exception e) {
+                promise.reject("search event error", e.getMessage());
+            }
+        } else {
+            promise.reject("search event error", "you don't have permissions to read an event from the users calendar");
+        }
+    }
+
+    /**
+     * Resolves, for each candidate event, the existing instances it overlaps.
+     */
+    @ReactMethod
+    public void findConflicts(final ReadableArray candidates, final ReadableArray calendars, final ReadableMap options, final Promise promise) {
+        if (this.haveCalendarReadWritePermissions()) {
+            int invalid = invalidCandidate(candidates);
+            if (invalid != -1) {
+                promise.reject("find conflicts error", "candidate " + invalid + " needs a startDate and endDate string or number");
+                return;
+            }
+
+            try {
+                read("findConflicts", "find conflicts error", options, promise, new Runnable(){
+                    @Override
+                    public void run() {
+                        promise.resolve(findConflicts(candidates, calendars, busyAvailabilities(options), ignoreAllDay(options), EventFields.from(options)));
+                    }
+                });
+
+            } catch (Exception e) {
+                promise.reject("find conflicts error", e.getMessage());
+            }
+        } else {
+            promise.reject("find conflicts error", "you don't have permissions to read an event from the users calendar");
+        }
+    }
+
+    /**
+     * Resolves the busy intervals of the range, merged, and the free slots
+     * between them, as flat [start, end, start, end...] arrays of epoch
+     * milliseconds.
+     */
+    @ReactMethod
+    public void findFreeBusy(final Dynamic startDate, final Dynamic endDate, final ReadableArray calendars, final ReadableMap options, final Promise promise) {
+        if (this.haveCalendarReadWritePermissions()) {
+            try {
+                read("findFreeBusy", "find free busy error", options, promise, new Runnable(){
+                    @Override
+                    public void run() {
+                        long minFreeMillis = options.hasKey("minFreeMinutes") ? (long) (options.getDouble("minFreeMinutes") * 60000) : 0;
+
+                        promise.resolve(findFreeBusy(startDate, endDate, calendars, busyAvailabilities(options), ignoreAllDay(options), minFreeMillis));
+                    }
+                });
+
+            } catch (Exception e) {
+                promise.reject("find free busy error", e.getMessage());
+            }
+        } else {
+            promise.reject("find free busy error", "you don't have permissions to read an event from the users calendar");
+        }
+    }
+
+    /**
+     * Resolves the events inside the range and then emits the instances
+     * that are added, changed or removed there as {@link #CHANGE_EVENT}s,
+     * until {@link #unsubscribe} is called with the `subscriptionId` option.
+     */
+    @ReactMethod
+    public void subscribe(final Dynamic startDate, final Dynamic endDate, final ReadableArray calendars, final ReadableMap options, final Promise promise) {
+        if (this.haveCalendarReadWritePermissions()) {
+            if (!options.hasKey("subscriptionId") || options.getType("subscriptionId") != ReadableType.String) {
+                promise.reject("subscribe error", "options.subscriptionId must be a string");
+                return;
+            }
+            final String subscriptionId = options.getString("subscriptionId");
+
+            try {
+                read("subscribe", "subscribe error", options, promise, new Runnable(){
+                    @Override
+                    public void run() {
+                        long[] range = dateRange(startDate, endDate);
+                        ArrayList<String> calendarIDs = new ArrayList<>(calendars.size());
+                        for (int i = 0; i < calendars.size(); i++) {
+                            calendarIDs.add(calendars.getString(i));
+                        }
+
+                        promise.resolve(subscriptions.subscribe(subscriptionId, range[0], range[1], calendarIDs, EventFields.from(options)));
+                    }
+                });
+
+            } catch (Exception e) {
+                promise.reject("subscribe error", e.getMessage());
+            }
+        } else {
+            promise.reject("subscribe error", "you don't have permissions to read an event from the users calendar");
+        }
+    }
+
+    @ReactMethod
+    public void unsubscribe(String subscriptionId, Promise promise) {
+        promise.resolve(subscriptions.unsubscribe(subscriptionId));
+    }
+
+    @ReactMethod
+    public void findById(final String eventID, final ReadableMap options, final Promise promise) {
+        if (this.haveCalendarReadWritePermissions()) {
+            try {
+                String key = "findById:" + eventID + ":" + EventFields.from(options).key() + ":" + readPriority(options);
+
+                readShared("findById", key, "find event error", options, promise, new SingleFlight.Read(){
+                    @Override
+                    public Object run() {
+                        return findEventById(eventID, EventFields.from(options));
+                    }
+                });
+
+            } catch (Exception e) {
+                promise.reject("find event error", e.getMessage());
+            }
+        } else {
+            promise.reject("find event error", "you don't have permissions to read an event from the users calendar");
+        }
 
+    }
+
+    @ReactMethod
+    public void findByIds(final ReadableArray eventIDs, final ReadableMap options, final Promise promise) {
         if (this.haveCalendarReadWritePermissions()) {
             try {
-                Thread thread = new Thread(new Runnable(){
+                read("findByIds", "find event error", options, promise, new Runnable(){
                     @Override
                     public void run() {
-                        WritableNativeArray results = findEvents(startDate, endDate, calendars);
-                        promise.resolve(results);
+                        ArrayList<String> ids = new ArrayList<>();
+                        for (int i = 0; i < eventIDs.size(); i++) {
+                            ids.add(eventIDs.getString(i));
+                        }
+                        promise.resolve(findEventsByIds(ids, EventFields.from(options)));
                     }
                 });
-                thread.start();
 
             } catch (Exception e) {
                 promise.reject("find event error", e.getMessage());
@@ -1378,17 +2763,30 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     }
 
     @ReactMethod
-    public void findById(final String eventID, final Promise promise) {
+    public void findInstanceById(final String instanceID, final ReadableMap options, final Promise promise) {
         if (this.haveCalendarReadWritePermissions()) {
             try {
-                Thread thread = new Thread(new Runnable(){
+                read("findInstanceById", "find event error", options, promise, new Runnable(){
                     @Override
                     public void run() {
-                        WritableMap results = findEventById(eventID);
-                        promise.resolve(results);
+                        try {
+                            String eventID = options.hasKey("eventId") ? options.getString("eventId") : null;
+                            Long instanceStart = null;
+                            if (options.hasKey("instanceStart")) {
+                                instanceStart = options.getType("instanceStart") == ReadableType.String
+                                        ? Iso8601.UTC.parse(options.getString("instanceStart"))
+                                        : (long) options.getDouble("instanceStart");
+                            }
+
+                            promise.resolve(findEventInstanceById(instanceID, eventID, instanceStart, EventFields.from(options)));
+                        } catch (OperationCanceledException e) {
+                            throw e;
+                        } catch (Exception e) {
+                            metrics.failed();
+                            promise.reject("find event error", e.getMessage());
+                        }
                     }
                 });
-                thread.start();
 
             } catch (Exception e) {
                 promise.reject("find event error", e.getMessage());
@@ -1403,14 +2801,13 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     public void removeEvent(final String eventID, final ReadableMap options, final Promise promise) {
         if (this.haveCalendarReadWritePermissions()) {
             try {
-                Thread thread = new Thread(new Runnable(){
+                write("removeEvent", "remove event error", Collections.singletonList(eventID), promise, new Runnable(){
                     @Override
                     public void run() {
                         boolean successful = removeEvent(eventID, options);
                         promise.resolve(successful);
                     }
                 });
-                thread.start();
 
             } catch (Exception e) {
                 promise.reject("error removing event", e.getMessage());
@@ -1425,23 +2822,12 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
     public void removeEvents(final ReadableArray eventIDs, final ReadableMap options, final Promise promise) {
         if (this.haveCalendarReadWritePermissions()) {
             try {
-                Thread thread = new Thread(new Runnable(){
+                write("removeEvents", "remove event error", strings(eventIDs), promise, new Runnable(){
                     @Override
                     public void run() {
-                        WritableNativeArray res = new WritableNativeArray();
-                        if(eventIDs.size() <= 0) {
-                            promise.resolve(res);
-                            return;
-                        }
-
-                        for(int i = 0; i < eventIDs.size(); i++) {
-                            boolean successful = removeEvent(eventIDs.getString(i), options);
-                            res.pushBoolean(successful);
-                        }
-                        promise.resolve(res);
+                        promise.resolve(removeEvents(eventIDs, options));
                     }
                 });
-                thread.start();
 
             } catch (Exception e) {
                 promise.reject("error removing event", e.getMessage());
@@ -1452,6 +2838,56 @@ public class CalendarEvents extends ReactContextBaseJavaModule {
 
     }
 
+    /**
+     * Cancels the read started with this `requestId` option, if it is still
+     * queued or running. Its promise is rejected with {@link #E_CANCELLED}.
+     */
+    @ReactMethod
+    public void cancel(String requestId, Promise promise) {
+        promise.resolve(requests.cancel(requestId));
+    }
+
+    @ReactMethod
+    public void getCalendarCacheStats(Promise promise) {
+        promise.resolve(calendarCache.stats());
+    }
+
+    /**
+     * Latency, provider query, row, payload and error counts per method since
+     * the module was created or the metrics were last reset.
+     */
+    @ReactMethod
+    public void getMetrics(Promise promise) {
+        promise.resolve(metrics.snapshot());
+    }
+
+    @ReactMethod
+    public void resetMetrics(Promise promise) {
+        metrics.reset();
+        promise.resolve(null);
+    }
+
+    /**
+     * Starts recording calls that take at least {@code millis}, or stops
+     * recording when it is negative.
+     */
+    @ReactMethod
+    public void setSlowQueryThreshold(double millis, Promise promise) {
+        metrics.slowQueries().setThreshold(millis);
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    public void getSlowQueries(Promise promise) {
+        promise.resolve(metrics.slowQueries().dump());
+    }
+
+    @ReactMethod
+    public void clearSlowQueries(Promise promise) {
+        metrics.slowQueries().clear();
+        promise.resolve(null);
+    }
+
     @ReactMethod
     public void openEventInCalendar(int eventID) {
         Uri uri = ContentUris.withAppendedId(CalendarContract.Events.CONTENT_URI, eventID);
@@ -11,6 +11,19 @@ import java.util.List;
 
 public class CalendarEventsPackage implements ReactPackage {
 
+    private final int readPoolSize;
+
+    public CalendarEventsPackage() {
+        this(CalendarExecutor.DEFAULT_READ_POOL_SIZE);
+    }
+
+    /**
+     * @param readPoolSize number of threads serving concurrent calendar reads
+     */
+    public CalendarEventsPackage(int readPoolSize) {
+        this.readPoolSize = readPoolSize;
+    }
+
     @Override
     public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
         return Collections.emptyList();
@@ -21,7 +34,7 @@ public class CalendarEventsPackage implements ReactPackage {
             ReactApplicationContext reactContext) {
         List<NativeModule> modules = new ArrayList<>();
 
-        modules.add(new CalendarEvents(reactContext));
+        modules.add(new CalendarEvents(reactContext, readPoolSize));
 
         return modules;
     }
@@ -0,0 +1,126 @@
+package com.calendarevents;
+
+import android.os.Process;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the module's provider work. Reads share a bounded pool whose queue is
+ * ordered by priority, writes go through a single thread so they are applied
+ * one at a time in the order they were requested. Reads are waited on by
+ * the UI and run at the default thread priority, writes in the background.
+ */
+final class CalendarExecutor {
+
+    static final int PRIORITY_NORMAL = 0;
+    static final int PRIORITY_HIGH = 1;
+    static final int DEFAULT_READ_POOL_SIZE = 2;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor readExecutor;
+    private final ThreadPoolExecutor writeExecutor;
+    private final AtomicLong sequence = new AtomicLong();
+
+    CalendarExecutor(int readPoolSize) {
+        int poolSize = Math.max(1, readPoolSize);
+
+        readExecutor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new LaneThreadFactory("read", Process.THREAD_PRIORITY_DEFAULT));
+        readExecutor.allowCoreThreadTimeOut(true);
+
+        writeExecutor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new LaneThreadFactory("write", Process.THREAD_PRIORITY_BACKGROUND));
+        writeExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    void read(int priority, Runnable task) {
+        read(priority, task, null);
+    }
+
+    /**
+     * @param dropped run instead of {@code task} if the executor shuts down
+     *                before the task started, may be null
+     */
+    void read(int priority, Runnable task, Runnable dropped) {
+        readExecutor.execute(new PrioritizedTask(priority, sequence.getAndIncrement(), task, dropped));
+    }
+
+    void write(Runnable task) {
+        writeExecutor.execute(task);
+    }
+
+    /**
+     * Pending reads are dropped and told so, writes that were already
+     * accepted still run.
+     */
+    void shutdown() {
+        for (Runnable task : readExecutor.shutdownNow()) {
+            ((PrioritizedTask) task).drop();
+        }
+        writeExecutor.shutdown();
+    }
+
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final int priority;
+        private final long sequence;
+        private final Runnable task;
+        private final Runnable dropped;
+
+        PrioritizedTask(int priority, long sequence, Runnable task, Runnable dropped) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+            this.dropped = dropped;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        void drop() {
+            if (dropped != null) {
+                dropped.run();
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            if (priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    private static final class LaneThreadFactory implements ThreadFactory {
+        private final String lane;
+        private final int threadPriority;
+        private final AtomicInteger count = new AtomicInteger();
+
+        LaneThreadFactory(String lane, int threadPriority) {
+            this.lane = lane;
+            this.threadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(threadPriority);
+                    runnable.run();
+                }
+            }, "CalendarEvents-" + lane + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.calendarevents;
+
+import android.net.Uri;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latency, provider and payload counters per React method.
+ *
+ * A method call is measured from when it is queued to when its task ends.
+ * Provider queries, rows and payload bytes are added to the call running on
+ * the current thread and merged into the method's totals when it ends, so
+ * the hot paths only touch a thread-local counter. Latencies go into log2
+ * buckets of microseconds, percentiles are read from the buckets.
+ *
+ * Calls are also split into {@link #STAGES} for the {@link SlowQueryLog}:
+ * waiting in the queue, provider queries, loading attendees, reminders and
+ * calendars (including their queries), and the rest, which is mostly cursor
+ * iteration and serialization.
+ */
+final class CalendarMetrics {
+
+    // bucket i holds calls that took less than 2^i microseconds, the last one everything slower
+    static final int BUCKETS = 26;
+
+    static final String[] STAGES = new String[]{"queued", "query", "children", "serialize"};
+    private static final int QUEUED = 0;
+    private static final int QUERY = 1;
+    private static final int CHILDREN = 2;
+    private static final int SERIALIZE = 3;
+
+    private static final class Stats {
+        long calls;
+        long errors;
+        long totalMicros;
+        long maxMicros;
+        long queries;
+        long rows;
+        long bytes;
+        final long[] histogram = new long[BUCKETS];
+    }
+
+    /**
+     * The counters of one method call, kept by the thread running it.
+     */
+    static final class Call {
+        final String method;
+        final long queuedAt;
+        final long startedAt = System.nanoTime();
+        long queries;
+        long rows;
+        long bytes;
+        boolean failed;
+        long queryNanos;
+        long childrenNanos;
+        int childrenDepth;
+        // only kept while the slow query log is on
+        ArrayList<SlowQueryLog.Query> queryLog;
+
+        Call(String method, long queuedAt) {
+            this.method = method;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private final ThreadLocal<Call> current = new ThreadLocal<>();
+    private final LinkedHashMap<String, Stats> methods = new LinkedHashMap<>();
+    private long since = System.currentTimeMillis();
+    private final SlowQueryLog slowQueries = new SlowQueryLog();
+
+    SlowQueryLog slowQueries() {
+        return slowQueries;
+    }
+
+    /**
+     * Wraps a method's task so it is measured from now until it ends.
+     */
+    Runnable measure(final String method, final Runnable task) {
+        final long queuedAt = System.nanoTime();
+        return new Runnable() {
+            @Override
+            public void run() {
+                Call call = new Call(method, queuedAt);
+                if (slowQueries.enabled()) {
+                    call.queryLog = new ArrayList<>();
+                }
+                Call outer = current.get();
+                current.set(call);
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    call.failed = true;
+                    throw e;
+                } finally {
+                    current.set(outer);
+                    end(call);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a writer so the fields written through it are added to the
+     * running call's payload bytes.
+     */
+    EventWriter count(EventWriter writer) {
+        Call call = current.get();
+        return call != null ? new PayloadCounter(writer, call) : writer;
+    }
+
+    void query(Uri uri, String[] projection, String selection, String[] selectionArgs, int rows, long nanos) {
+        Call call = current.get();
+        if (call == null) {
+            return;
+        }
+        call.queries++;
+        call.rows += rows;
+        if (call.childrenDepth == 0) {
+            call.queryNanos += nanos;
+        }
+        if (call.queryLog != null && call.queryLog.size() < SlowQueryLog.MAX_QUERIES) {
+            call.queryLog.add(new SlowQueryLog.Query(String.valueOf(uri), projection, selection, selectionArgs, rows, nanos / 1000));
+        }
+    }
+
+    /**
+     * Starts timing the load of attendees, reminders and calendars.
+     * @return what {@link #endChildren} takes
+     */
+    long startChildren() {
+        Call call = current.get();
+        if (call == null) {
+            return 0;
+        }
+        call.childrenDepth++;
+        return System.nanoTime();
+    }
+
+    void endChildren(long start) {
+        Call call = current.get();
+        if (call != null && start != 0) {
+            call.childrenDepth--;
+            if (call.childrenDepth == 0) {
+                call.childrenNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    void bytes(long bytes) {
+        Call call = current.get();
+        if (call != null) {
+            call.bytes += bytes;
+        }
+    }
+
+    /**
+     * Counts the running call as an error, for tasks that reject their
+     * promise instead of throwing.
+     */
+    void failed() {
+        Call call = current.get();
+        if (call != null) {
+            call.failed = true;
+        }
+    }
+
+    synchronized WritableNativeMap snapshot() {
+        WritableNativeMap methodMap = new WritableNativeMap();
+        for (Map.Entry<String, Stats> entry : methods.entrySet()) {
+            Stats stats = entry.getValue();
+
+            WritableNativeMap method = new WritableNativeMap();
+            method.putDouble("calls", stats.calls);
+            method.putDouble("errors", stats.errors);
+            method.putDouble("totalMs", stats.totalMicros / 1000.0);
+            method.putDouble("maxMs", stats.maxMicros / 1000.0);
+            method.putDouble("p50Ms", percentile(stats, 0.5) / 1000.0);
+            method.putDouble("p95Ms", percentile(stats, 0.95) / 1000.0);
+            method.putDouble("p99Ms", percentile(stats, 0.99) / 1000.0);
+            method.putDouble("queries", stats.queries);
+            method.putDouble("rows", stats.rows);
+            method.putDouble("bytes", stats.bytes);
+
+            WritableNativeArray histogram = new WritableNativeArray();
+            for (long count : stats.histogram) {
+                histogram.pushDouble(count);
+            }
+            method.putArray("histogram", histogram);
+
+            methodMap.putMap(entry.getKey(), method);
+        }
+
+        WritableNativeMap result = new WritableNativeMap();
+        result.putDouble("since", since);
+        result.putMap("methods", methodMap);
+        return result;
+    }
+
+    synchronized void reset() {
+        methods.clear();
+        since = System.currentTimeMillis();
+    }
+
+    private void end(Call call) {
+        long ended = System.nanoTime();
+        long micros = (ended - call.queuedAt) / 1000;
+        add(call, micros);
+
+        if (slowQueries.enabled()) {
+            long[] stages = new long[STAGES.length];
+            stages[QUEUED] = (call.startedAt - call.queuedAt) / 1000;
+            stages[QUERY] = call.queryNanos / 1000;
+            stages[CHILDREN] = call.childrenNanos / 1000;
+            stages[SERIALIZE] = Math.max(0, (ended - call.startedAt - call.queryNanos - call.childrenNanos) / 1000);
+            slowQueries.offer(call, micros, stages);
+        }
+    }
+
+    private synchronized void add(Call call, long micros) {
+        Stats stats = methods.get(call.method);
+        if (stats == null) {
+            stats = new Stats();
+            methods.put(call.method, stats);
+        }
+
+        stats.calls++;
+        if (call.failed) {
+            stats.errors++;
+        }
+        stats.totalMicros += micros;
+        stats.maxMicros = Math.max(stats.maxMicros, micros);
+        stats.queries += call.queries;
+        stats.rows += call.rows;
+        stats.bytes += call.bytes;
+        stats.histogram[bucket(micros)]++;
+    }
+
+    /**
+     * Estimates the JSON size of the scalar fields. Nested attendees, alarms
+     * and recurrence rules are not counted, reading native arrays and maps
+     * back would cost more than the serialization being measured.
+     */
+    private static final class PayloadCounter implements EventWriter {
+
+        private final EventWriter writer;
+        private final Call call;
+
+        PayloadCounter(EventWriter writer, Call call) {
+            this.writer = writer;
+            this.call = call;
+        }
+
+        @Override
+        public void putString(String key, String value) {
+            call.bytes += key.length() + (value != null ? value.length() + 6 : 8);
+            writer.putString(key, value);
+        }
+
+        @Override
+        public void putDouble(String key, double value) {
+            call.bytes += key.length() + 17;
+            writer.putDouble(key, value);
+        }
+
+        @Override
+        public void putBoolean(String key, boolean value) {
+            call.bytes += key.length() + 9;
+            writer.putBoolean(key, value);
+        }
+
+        @Override
+        public void putNull(String key) {
+            call.bytes += key.length() + 8;
+            writer.putNull(key);
+        }
+
+        @Override
+        public void putArray(String key, WritableNativeArray value) {
+            call.bytes += key.length() + 6;
+            writer.putArray(key, value);
+        }
+
+        @Override
+        public void putMap(String key, WritableNativeMap value) {
+            call.bytes += key.length() + 6;
+            writer.putMap(key, value);
+        }
+
+        @Override
+        public void putCalendar(String calendarID, EventRelations relations) {
+            call.bytes += calendarID != null ? calendarID.length() + 16 : 18;
+            writer.putCalendar(calendarID, relations);
+        }
+    }
+
+    static int bucket(long micros) {
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * @return the upper bound, in microseconds, of the bucket holding the
+     * percentile, or the slowest call if that is lower
+     */
+    private static long percentile(Stats stats, double percentile) {
+        if (stats.calls == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(stats.calls * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += stats.histogram[i];
+            if (seen >= rank) {
+                return i == BUCKETS - 1 ? stats.maxMicros : Math.min(1L << i, stats.maxMicros);
+            }
+        }
+        return stats.maxMicros;
+    }
+}
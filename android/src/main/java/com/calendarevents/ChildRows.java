@@ -0,0 +1,150 @@
+package com.calendarevents;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.CalendarContract;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Attendee or reminder rows of an event, and the operations that turn the
+ * rows an event has into the rows it should have. Rows are matched by a key
+ * (the attendee email, the reminder minutes and method), a matched row is
+ * only updated when a column we write differs, and columns we never write,
+ * like an attendee's response status, are left alone.
+ */
+final class ChildRows {
+
+    static final ChildRows ATTENDEES = new ChildRows(
+            CalendarContract.Attendees.CONTENT_URI,
+            CalendarContract.Attendees.EVENT_ID,
+            1,
+            new String[]{
+                    CalendarContract.Attendees.ATTENDEE_EMAIL,
+                    CalendarContract.Attendees.ATTENDEE_NAME,
+                    CalendarContract.Attendees.ATTENDEE_RELATIONSHIP
+            });
+
+    static final ChildRows REMINDERS = new ChildRows(
+            CalendarContract.Reminders.CONTENT_URI,
+            CalendarContract.Reminders.EVENT_ID,
+            2,
+            new String[]{
+                    CalendarContract.Reminders.MINUTES,
+                    CalendarContract.Reminders.METHOD
+            });
+
+    final Uri uri;
+    final String eventIdColumn;
+    private final int keyColumnCount;
+    // the key columns first
+    private final String[] columns;
+
+    private ChildRows(Uri uri, String eventIdColumn, int keyColumnCount, String[] columns) {
+        this.uri = uri;
+        this.eventIdColumn = eventIdColumn;
+        this.keyColumnCount = keyColumnCount;
+        this.columns = columns;
+    }
+
+    /**
+     * _ID, the event ID, then the columns this module writes.
+     */
+    String[] projection() {
+        String[] projection = new String[columns.length + 2];
+        projection[0] = CalendarContract.Attendees._ID;
+        projection[1] = eventIdColumn;
+        System.arraycopy(columns, 0, projection, 2, columns.length);
+        return projection;
+    }
+
+    /**
+     * Reads the current row of a cursor over {@link #projection()}.
+     */
+    ContentValues read(Cursor cursor) {
+        ContentValues row = new ContentValues();
+        row.put(CalendarContract.Attendees._ID, cursor.getLong(0));
+        for (int i = 0; i < columns.length; i++) {
+            row.put(columns[i], cursor.getString(i + 2));
+        }
+        return row;
+    }
+
+    /**
+     * Adds the inserts, updates and deletes that turn {@code existing} into
+     * {@code desired}. Nothing is added when the two already match.
+     * @return the number of operations added
+     */
+    int diff(long eventID, List<ContentValues> existing, List<ContentValues> desired, List<ContentProviderOperation.Builder> operations) {
+        int before = operations.size();
+
+        // several rows can share a key, they are matched in order
+        HashMap<String, ArrayList<ContentValues>> byKey = new HashMap<>();
+        for (ContentValues row : existing) {
+            String key = key(row);
+            ArrayList<ContentValues> rows = byKey.get(key);
+            if (rows == null) {
+                rows = new ArrayList<>();
+                byKey.put(key, rows);
+            }
+            rows.add(row);
+        }
+
+        for (ContentValues values : desired) {
+            ArrayList<ContentValues> rows = byKey.get(key(values));
+            ContentValues match = rows != null && !rows.isEmpty() ? rows.remove(0) : null;
+
+            if (match == null) {
+                operations.add(ContentProviderOperation.newInsert(uri)
+                        .withValues(values)
+                        .withValue(eventIdColumn, eventID));
+            } else if (!same(match, values)) {
+                ContentValues changes = new ContentValues();
+                for (String column : columns) {
+                    changes.put(column, values.getAsString(column));
+                }
+                operations.add(ContentProviderOperation.newUpdate(rowUri(match))
+                        .withValues(changes));
+            }
+        }
+
+        for (ArrayList<ContentValues> rows : byKey.values()) {
+            for (ContentValues row : rows) {
+                operations.add(ContentProviderOperation.newDelete(rowUri(row)));
+            }
+        }
+
+        return operations.size() - before;
+    }
+
+    private Uri rowUri(ContentValues row) {
+        return ContentUris.withAppendedId(uri, row.getAsLong(CalendarContract.Attendees._ID));
+    }
+
+    private String key(ContentValues row) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < keyColumnCount; i++) {
+            String value = row.getAsString(columns[i]);
+            // emails are case insensitive
+            key.append(value != null ? value.toLowerCase(Locale.US) : "").append('\u0000');
+        }
+        return key.toString();
+    }
+
+    private boolean same(ContentValues row, ContentValues values) {
+        for (String column : columns) {
+            String a = row.getAsString(column);
+            String b = values.getAsString(column);
+            if (a == null ? b != null : !a.equals(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,129 @@
+package com.calendarevents;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the `format: 'columnar'` result: one array per field, where index i
+ * of every array belongs to the i-th event, and each calendar once, keyed by
+ * ID, instead of a copy in every event.
+ *
+ * <pre>
+ * {
+ *   count: 2,
+ *   columns: { id: ['1', '2'], title: ['a', 'b'], startDate: [...], calendarId: ['3', '3'], ... },
+ *   calendars: { '3': { id: '3', title: ..., ... } }
+ * }
+ * </pre>
+ *
+ * Fields an event does not have, like `originalId` on most events, are null
+ * at its index.
+ */
+final class ColumnarEvents implements EventWriter {
+
+    private static final class Column {
+        final WritableNativeArray values = new WritableNativeArray();
+        int size;
+    }
+
+    private final LinkedHashMap<String, Column> columns = new LinkedHashMap<>();
+    private final WritableNativeMap calendars = new WritableNativeMap();
+    private final HashSet<String> calendarIds = new HashSet<>();
+    private int row = -1;
+
+    /**
+     * Starts the next event, the puts that follow fill its index.
+     */
+    void startRow() {
+        row++;
+    }
+
+    int count() {
+        return row + 1;
+    }
+
+    /**
+     * Only call once, the arrays are handed over to the result.
+     */
+    WritableNativeMap result() {
+        WritableNativeMap columnMap = new WritableNativeMap();
+        for (Map.Entry<String, Column> entry : columns.entrySet()) {
+            Column column = entry.getValue();
+            pad(column, count());
+            columnMap.putArray(entry.getKey(), column.values);
+        }
+
+        WritableNativeMap result = new WritableNativeMap();
+        result.putInt("count", count());
+        result.putMap("columns", columnMap);
+        result.putMap("calendars", calendars);
+        return result;
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        column(key).values.pushString(value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        column(key).values.pushDouble(value);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        column(key).values.pushBoolean(value);
+    }
+
+    @Override
+    public void putNull(String key) {
+        column(key).values.pushNull();
+    }
+
+    @Override
+    public void putArray(String key, WritableNativeArray value) {
+        column(key).values.pushArray(value);
+    }
+
+    @Override
+    public void putMap(String key, WritableNativeMap value) {
+        column(key).values.pushMap(value);
+    }
+
+    @Override
+    public void putCalendar(String calendarID, EventRelations relations) {
+        putString("calendarId", calendarID);
+        if (calendarID != null && calendarIds.add(calendarID)) {
+            WritableNativeMap calendar = relations.calendar(calendarID);
+            if (calendar != null) {
+                calendars.putMap(calendarID, calendar);
+            }
+        }
+    }
+
+    /**
+     * The column for the current row, padded with nulls for the rows before
+     * it that did not have the field.
+     */
+    private Column column(String key) {
+        Column column = columns.get(key);
+        if (column == null) {
+            column = new Column();
+            columns.put(key, column);
+        }
+        pad(column, row);
+        column.size++;
+        return column;
+    }
+
+    private static void pad(Column column, int size) {
+        while (column.size < size) {
+            column.values.pushNull();
+            column.size++;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.calendarevents;
+
+import android.database.Cursor;
+
+/**
+ * 64-bit FNV-1a over provider values, used to tell whether a row changed
+ * without keeping its content around.
+ */
+final class ContentHash {
+
+    static final long SEED = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private ContentHash() {
+    }
+
+    static long mix(long hash, String value) {
+        if (value == null) {
+            hash ^= 0xff;
+            hash *= PRIME;
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= PRIME;
+            }
+        }
+        // separator, so ("ab", "c") and ("a", "bc") differ
+        hash ^= 0x1f;
+        hash *= PRIME;
+        return hash;
+    }
+
+    /**
+     * Hashes the current row's columns from {@code from} to the last one.
+     */
+    static long row(Cursor cursor, int from) {
+        long hash = SEED;
+        for (int i = from; i < cursor.getColumnCount(); i++) {
+            hash = mix(hash, cursor.getString(i));
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,110 @@
+package com.calendarevents;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
+import android.os.RemoteException;
+import android.provider.CalendarContract;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the provider operations of several items so they can be committed
+ * with a single applyBatch call. The calendar provider applies a batch in one
+ * transaction, so every item of a chunk is written or none is.
+ *
+ * The provider rejects a batch with more than 500 operations between two
+ * yield points. An item with more than {@link #MAX_OPERATIONS}, like an event
+ * with hundreds of attendees, gets a batch of its own with a yield point
+ * every {@link #MAX_OPERATIONS} operations. The provider may commit at a
+ * yield point, so such an item can be partly written when a later operation
+ * fails.
+ */
+final class EventBatch {
+
+    // below the provider's yield point, and keeps each binder transaction small
+    static final int MAX_OPERATIONS = 400;
+
+    private final ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+    private final ArrayList<Integer> items = new ArrayList<>();
+    private final ArrayList<Integer> resultIndices = new ArrayList<>();
+    // operations since the batch started or the last yield point
+    private int sinceYield;
+
+    boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * An item always fits into an empty batch, however many operations it has.
+     */
+    boolean fits(int operationCount) {
+        return operations.isEmpty() || operations.size() + operationCount <= MAX_OPERATIONS;
+    }
+
+    int nextIndex() {
+        return operations.size();
+    }
+
+    void add(ContentProviderOperation.Builder operation) {
+        if (sinceYield == MAX_OPERATIONS) {
+            operation.withYieldAllowed(true);
+            sinceYield = 0;
+        }
+        sinceYield++;
+        operations.add(operation.build());
+    }
+
+    /**
+     * Adds the inserts of a new event's child rows, which point back at the
+     * insert that creates it.
+     */
+    void addChildren(ChildRows kind, List<ContentValues> children, int eventIndex) {
+        for (ContentValues values : children) {
+            add(ContentProviderOperation.newInsert(kind.uri)
+                    .withValues(values)
+                    .withValueBackReference(kind.eventIdColumn, eventIndex));
+        }
+    }
+
+    /**
+     * Records which operation's result answers for the given item.
+     */
+    void addItem(int item, int resultIndex) {
+        items.add(item);
+        resultIndices.add(resultIndex);
+    }
+
+    int itemCount() {
+        return items.size();
+    }
+
+    int item(int position) {
+        return items.get(position);
+    }
+
+    int resultIndex(int position) {
+        return resultIndices.get(position);
+    }
+
+    ContentProviderResult[] apply(ContentResolver resolver) throws RemoteException, OperationApplicationException {
+        return resolver.applyBatch(CalendarContract.AUTHORITY, operations);
+    }
+
+    /**
+     * The operations added since the batch was cleared, not to be modified.
+     */
+    List<ContentProviderOperation> operations() {
+        return operations;
+    }
+
+    void clear() {
+        operations.clear();
+        items.clear();
+        resultIndices.clear();
+        sinceYield = 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.calendarevents;
+
+import android.database.Cursor;
+import android.provider.CalendarContract;
+
+/**
+ * Column positions of an event cursor, resolved once per cursor instead of
+ * once per row. A column that is not part of the projection is -1.
+ */
+final class EventColumns {
+
+    final EventFields fields;
+    final int id = 0;
+    final int eventId;
+    final int title;
+    final int description;
+    final int start;
+    final int end;
+    final int allDay;
+    final int location;
+    final int rrule;
+    final int duration;
+    final int calendarId;
+    final int availability;
+    final int hasAlarm;
+    final int originalId;
+    final int syncId;
+
+    private EventColumns(Cursor cursor, EventFields fields) {
+        this.fields = fields;
+
+        int instanceEventId = cursor.getColumnIndex(CalendarContract.Instances.EVENT_ID);
+        // Instances rows carry the parent event in EVENT_ID, Events rows in _ID
+        eventId = instanceEventId != -1 ? instanceEventId : id;
+        title = cursor.getColumnIndex(CalendarContract.Events.TITLE);
+        description = cursor.getColumnIndex(CalendarContract.Events.DESCRIPTION);
+        start = either(cursor, CalendarContract.Instances.BEGIN, CalendarContract.Events.DTSTART);
+        end = either(cursor, CalendarContract.Instances.END, CalendarContract.Events.DTEND);
+        allDay = cursor.getColumnIndex(CalendarContract.Events.ALL_DAY);
+        location = cursor.getColumnIndex(CalendarContract.Events.EVENT_LOCATION);
+        rrule = cursor.getColumnIndex(CalendarContract.Events.RRULE);
+        duration = cursor.getColumnIndex(CalendarContract.Events.DURATION);
+        calendarId = cursor.getColumnIndex(CalendarContract.Events.CALENDAR_ID);
+        availability = cursor.getColumnIndex(CalendarContract.Events.AVAILABILITY);
+        hasAlarm = cursor.getColumnIndex(CalendarContract.Events.HAS_ALARM);
+        originalId = cursor.getColumnIndex(CalendarContract.Events.ORIGINAL_ID);
+        syncId = cursor.getColumnIndex(CalendarContract.Instances.ORIGINAL_SYNC_ID);
+    }
+
+    static EventColumns of(Cursor cursor, EventFields fields) {
+        return new EventColumns(cursor, fields);
+    }
+
+    private static int either(Cursor cursor, String column, String fallback) {
+        int index = cursor.getColumnIndex(column);
+        return index != -1 ? index : cursor.getColumnIndex(fallback);
+    }
+
+    String string(Cursor cursor, int column) {
+        return column != -1 ? cursor.getString(column) : null;
+    }
+
+    boolean hasAlarm(Cursor cursor) {
+        return hasAlarm != -1 && cursor.getInt(hasAlarm) > 0;
+    }
+}
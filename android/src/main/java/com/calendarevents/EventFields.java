@@ -0,0 +1,138 @@
+package com.calendarevents;
+
+import android.provider.CalendarContract;
+import android.text.TextUtils;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * The event fields a caller asked for through the `fields` read option. The
+ * projection only keeps the columns those fields are built from, and the
+ * attendee, alarm and calendar lookups are skipped when they are not wanted.
+ * Also carries the `dateFormat` read option, since it shapes the same events.
+ */
+final class EventFields {
+
+    static final EventFields ALL = new EventFields(null, false);
+
+    private static final HashMap<String, String[]> COLUMN_FIELDS = new HashMap<>();
+
+    static {
+        COLUMN_FIELDS.put(CalendarContract.Events.TITLE, new String[]{"title"});
+        COLUMN_FIELDS.put(CalendarContract.Events.DESCRIPTION, new String[]{"description"});
+        COLUMN_FIELDS.put(CalendarContract.Instances.BEGIN, new String[]{"startDate", "alarms"});
+        COLUMN_FIELDS.put(CalendarContract.Events.DTSTART, new String[]{"startDate", "alarms"});
+        COLUMN_FIELDS.put(CalendarContract.Instances.END, new String[]{"endDate"});
+        COLUMN_FIELDS.put(CalendarContract.Events.DTEND, new String[]{"endDate"});
+        COLUMN_FIELDS.put(CalendarContract.Events.ALL_DAY, new String[]{"allDay"});
+        COLUMN_FIELDS.put(CalendarContract.Events.EVENT_LOCATION, new String[]{"location"});
+        COLUMN_FIELDS.put(CalendarContract.Events.RRULE, new String[]{"recurrence", "recurrenceRule"});
+        COLUMN_FIELDS.put(CalendarContract.Events.DURATION, new String[]{"recurrenceRule"});
+        COLUMN_FIELDS.put(CalendarContract.Events.CALENDAR_ID, new String[]{"calendar"});
+        COLUMN_FIELDS.put(CalendarContract.Events.AVAILABILITY, new String[]{"availability"});
+        COLUMN_FIELDS.put(CalendarContract.Events.HAS_ALARM, new String[]{"alarms"});
+        COLUMN_FIELDS.put(CalendarContract.Events.ORIGINAL_ID, new String[]{"originalId"});
+        COLUMN_FIELDS.put(CalendarContract.Instances.ORIGINAL_SYNC_ID, new String[]{"syncId"});
+    }
+
+    private final HashSet<String> fields;
+    private final boolean epochDates;
+
+    private EventFields(HashSet<String> fields, boolean epochDates) {
+        this.fields = fields;
+        this.epochDates = epochDates;
+    }
+
+    static EventFields from(ReadableMap options) {
+        if (options == null) {
+            return ALL;
+        }
+
+        boolean epochDates = options.hasKey("dateFormat") && "epoch".equals(options.getString("dateFormat"));
+        if (!options.hasKey("fields") || options.isNull("fields")) {
+            return epochDates ? new EventFields(null, true) : ALL;
+        }
+
+        ReadableArray list = options.getArray("fields");
+        HashSet<String> fields = new HashSet<>();
+        for (int i = 0; i < list.size(); i++) {
+            fields.add(list.getString(i));
+        }
+        return new EventFields(fields, epochDates);
+    }
+
+    boolean has(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    boolean isAll() {
+        return fields == null;
+    }
+
+    /**
+     * Whether dates are sent as epoch milliseconds instead of ISO 8601 strings.
+     */
+    boolean epochDates() {
+        return epochDates;
+    }
+
+    EventFields withEpochDates() {
+        return epochDates ? this : new EventFields(fields, true);
+    }
+
+    /**
+     * Identifies the requested fields, equal for equal field sets.
+     */
+    String key() {
+        String dates = epochDates ? "epoch:" : "iso:";
+        if (fields == null) {
+            return dates + "*";
+        }
+        ArrayList<String> sorted = new ArrayList<>(fields);
+        Collections.sort(sorted);
+        return dates + TextUtils.join(",", sorted);
+    }
+
+    /**
+     * Narrows a full event projection to the requested fields. The first column
+     * (the row ID), the parent event ID and the {@code required} columns are
+     * always kept.
+     */
+    String[] project(String[] projection, String... required) {
+        if (fields == null) {
+            return projection;
+        }
+
+        ArrayList<String> columns = new ArrayList<>();
+        for (int i = 0; i < projection.length; i++) {
+            String column = projection[i];
+            if (columns.contains(column)) {
+                continue;
+            }
+            if (i == 0 || column.equals(CalendarContract.Instances.EVENT_ID) || Arrays.asList(required).contains(column) || wants(column)) {
+                columns.add(column);
+            }
+        }
+        return columns.toArray(new String[columns.size()]);
+    }
+
+    private boolean wants(String column) {
+        String[] columnFields = COLUMN_FIELDS.get(column);
+        if (columnFields == null) {
+            return false;
+        }
+        for (String field : columnFields) {
+            if (fields.contains(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,77 @@
+package com.calendarevents;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Calendars, attendees and reminders for a set of event rows, loaded in bulk
+ * and joined to the rows in memory while they are serialized.
+ */
+final class EventRelations {
+
+    private final HashMap<String, WritableNativeMap> calendars = new HashMap<>();
+    private final HashMap<String, ArrayList<WritableNativeMap>> attendees = new HashMap<>();
+    private final HashMap<String, ArrayList<Integer>> reminders = new HashMap<>();
+    private final HashMap<String, Long> childHashes = new HashMap<>();
+
+    void putCalendar(String calendarID, WritableNativeMap calendar) {
+        calendars.put(calendarID, calendar);
+    }
+
+    void addAttendee(String eventID, WritableNativeMap attendee) {
+        ArrayList<WritableNativeMap> list = attendees.get(eventID);
+        if (list == null) {
+            list = new ArrayList<>();
+            attendees.put(eventID, list);
+        }
+        list.add(attendee);
+    }
+
+    void addReminder(String eventID, int minutes) {
+        ArrayList<Integer> list = reminders.get(eventID);
+        if (list == null) {
+            list = new ArrayList<>();
+            reminders.put(eventID, list);
+        }
+        list.add(minutes);
+    }
+
+    /**
+     * Adds the content hash of an attendee or reminder row. Rows come back in
+     * no particular order, so their hashes are summed.
+     */
+    void addChildHash(String eventID, long hash) {
+        Long sum = childHashes.get(eventID);
+        childHashes.put(eventID, (sum != null ? sum : 0L) + hash);
+    }
+
+    long childHash(String eventID) {
+        Long sum = childHashes.get(eventID);
+        return sum != null ? sum : 0L;
+    }
+
+    WritableNativeMap calendar(String calendarID) {
+        return ReadableCopies.copy(calendars.get(calendarID));
+    }
+
+    WritableNativeArray attendees(String eventID) {
+        WritableNativeArray result = new WritableNativeArray();
+        ArrayList<WritableNativeMap> list = attendees.get(eventID);
+        if (list != null) {
+            for (WritableNativeMap attendee : list) {
+                result.pushMap(ReadableCopies.copy(attendee));
+            }
+        }
+        return result;
+    }
+
+    List<Integer> reminderMinutes(String eventID) {
+        ArrayList<Integer> list = reminders.get(eventID);
+        return list != null ? list : Collections.<Integer>emptyList();
+    }
+}
@@ -0,0 +1,178 @@
+package com.calendarevents;
+
+import android.database.Cursor;
+import android.provider.CalendarContract;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.List;
+
+/**
+ * Serializes one event or instance row into an {@link EventWriter}. Kept out
+ * of the module so it only needs the cursor, its relations and the bridge's
+ * map and array types, and the benchmark can run the same code.
+ */
+final class EventSerializer {
+
+    private EventSerializer() {
+    }
+
+    static void write(Cursor cursor, EventRelations relations, EventColumns columns, EventWriter event) {
+        EventFields fields = columns.fields;
+
+        boolean allDay = false;
+        String start = columns.string(cursor, columns.start);
+        String end = columns.string(cursor, columns.end);
+
+        if (columns.string(cursor, columns.allDay) != null) {
+            allDay = cursor.getInt(columns.allDay) != 0;
+        }
+
+        String rrule = columns.string(cursor, columns.rrule);
+        if (rrule != null && (fields.has("recurrence") || fields.has("recurrenceRule"))) {
+            RecurrenceRule rule = RecurrenceRule.parse(rrule);
+
+            if (rule.frequency != null && fields.has("recurrence")) {
+                event.putString("recurrence", rule.frequency);
+            }
+
+            if (fields.has("recurrenceRule")) {
+                event.putMap("recurrenceRule", recurrenceRule(rule, columns.string(cursor, columns.duration), fields));
+            }
+        }
+
+        String eventID = cursor.getString(columns.eventId);
+
+        event.putString("id", cursor.getString(columns.id));
+        if (fields.has("calendar")) {
+            event.putCalendar(cursor.getString(columns.calendarId), relations);
+        }
+        if (fields.has("title")) {
+            event.putString("title", cursor.getString(columns.title));
+        }
+        if (fields.has("description")) {
+            event.putString("description", cursor.getString(columns.description));
+        }
+        if (fields.has("startDate")) {
+            putDate(event, "startDate", start, fields);
+        }
+        if (fields.has("endDate")) {
+            putDate(event, "endDate", end, fields);
+        }
+        if (fields.has("allDay")) {
+            event.putBoolean("allDay", allDay);
+        }
+        if (fields.has("location")) {
+            event.putString("location", cursor.getString(columns.location));
+        }
+        if (fields.has("availability")) {
+            event.putString("availability", availability(cursor.getInt(columns.availability)));
+        }
+        if (fields.has("attendees")) {
+            event.putArray("attendees", relations.attendees(eventID));
+        }
+
+        if (fields.has("alarms")) {
+            if (columns.hasAlarm(cursor) && start != null) {
+                event.putArray("alarms", alarms(relations.reminderMinutes(eventID), Long.parseLong(start), fields));
+            } else {
+                WritableNativeArray emptyAlarms = new WritableNativeArray();
+                event.putArray("alarms", emptyAlarms);
+            }
+        }
+
+        if (fields.has("originalId") && columns.string(cursor, columns.originalId) != null) {
+            event.putString("originalId", cursor.getString(columns.originalId));
+        }
+
+        if (fields.has("syncId") && columns.string(cursor, columns.syncId) != null) {
+            event.putString("syncId", cursor.getString(columns.syncId));
+        }
+    }
+
+    /**
+     * Puts an ISO 8601 string, or the epoch milliseconds when the caller asked
+     * for `dateFormat: 'epoch'`.
+     */
+    static void putDate(WritableNativeMap map, String key, long millis, EventFields fields) {
+        if (fields.epochDates()) {
+            map.putDouble(key, millis);
+        } else {
+            map.putString(key, Iso8601.format(millis));
+        }
+    }
+
+    // a missing column is sent as an empty string, as it always was, or null for epoch dates
+    private static void putDate(EventWriter event, String key, String millis, EventFields fields) {
+        if (millis == null) {
+            if (fields.epochDates()) {
+                event.putNull(key);
+            } else {
+                event.putString(key, "");
+            }
+        } else if (fields.epochDates()) {
+            event.putDouble(key, Long.parseLong(millis));
+        } else {
+            event.putString(key, Iso8601.format(Long.parseLong(millis)));
+        }
+    }
+
+    static String availability(int constant) {
+        switch (constant) {
+            case CalendarContract.Events.AVAILABILITY_BUSY:
+            default:
+                return "busy";
+            case CalendarContract.Events.AVAILABILITY_FREE:
+                return "free";
+            case CalendarContract.Events.AVAILABILITY_TENTATIVE:
+                return "tentative";
+        }
+    }
+
+    private static WritableNativeArray alarms(List<Integer> reminderMinutes, long startDate, EventFields fields) {
+        WritableNativeArray results = new WritableNativeArray();
+
+        for (Integer minutes : reminderMinutes) {
+            WritableNativeMap alarm = new WritableNativeMap();
+            putDate(alarm, "date", startDate + minutes * 60000L, fields);
+            results.pushMap(alarm);
+        }
+
+        return results;
+    }
+
+    private static WritableNativeMap recurrenceRule(RecurrenceRule rule, String duration, EventFields fields) {
+        WritableNativeMap recurrenceRule = new WritableNativeMap();
+
+        if (rule.frequency != null) {
+            recurrenceRule.putString("frequency", rule.frequency);
+        }
+        if (duration != null) {
+            recurrenceRule.putString("duration", duration);
+        }
+        if (rule.interval != 0) {
+            recurrenceRule.putInt("interval", rule.interval);
+        }
+        if (rule.until != RecurrenceRule.NO_UNTIL) {
+            putDate(recurrenceRule, "endDate", rule.until, fields);
+        } else if (rule.count != 0) {
+            recurrenceRule.putInt("occurrence", rule.count);
+        }
+        if (rule.days.length > 0) {
+            WritableNativeArray daysOfWeek = new WritableNativeArray();
+            for (String day : rule.days) {
+                daysOfWeek.pushString(day);
+            }
+            recurrenceRule.putArray("daysOfWeek", daysOfWeek);
+        }
+        if (rule.setPosition != 0) {
+            recurrenceRule.putInt("weekPositionInMonth", rule.setPosition);
+        }
+        if (rule.weekStart != null) {
+            recurrenceRule.putString("weekStart", rule.weekStart);
+        }
+
+        return recurrenceRule;
+    }
+}
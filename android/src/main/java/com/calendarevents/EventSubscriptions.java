@@ -0,0 +1,443 @@
+package com.calendarevents;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.CalendarContract;
+import android.util.Log;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Live queries: the events of a range and calendar set, followed by the
+ * instances that were added, changed or removed whenever the provider changes.
+ *
+ * Provider notifications come in bursts, a sync can send hundreds, so they
+ * are debounced into one update. An update compares a new
+ * {@link ProviderSnapshot} with the previous one, requeries only the changed
+ * events a subscription can see and sorts their instances by whether JS
+ * already had them. Subscriptions remember the instances they sent, not the
+ * events themselves.
+ *
+ * Snapshots only read the calendars and the span the subscriptions cover
+ * together. Taking and comparing them holds a lock of its own, so
+ * unsubscribing never waits for one.
+ */
+final class EventSubscriptions {
+
+    static final long DEBOUNCE_MILLIS = 300;
+    // an endless burst still gets an update this often
+    static final long MAX_DELAY_MILLIS = 2000;
+
+    interface Host {
+        /**
+         * @param calendarIds null for every calendar
+         */
+        ProviderSnapshot snapshot(Collection<String> calendarIds, long start, long end);
+
+        /**
+         * @param eventIDs the events to load, or null for every event of the calendars
+         * @return the serialized instances overlapping the range
+         */
+        ArrayList<InstanceCache.Instance> instances(long start, long end, List<String> calendarIDs, Collection<String> eventIDs, EventFields fields);
+
+        /**
+         * Runs an update off the main thread.
+         */
+        void schedule(Runnable update);
+
+        void emit(WritableNativeMap changes);
+    }
+
+    private static final class Subscription {
+        final String id;
+        final long start;
+        final long end;
+        final List<String> calendarIDs;
+        final HashSet<String> calendarIds;
+        final EventFields fields;
+        // the begin times of the instances JS has, by event ID
+        final HashMap<String, HashSet<Long>> sent = new HashMap<>();
+
+        Subscription(String id, long start, long end, List<String> calendarIDs, EventFields fields) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.calendarIDs = calendarIDs;
+            this.calendarIds = calendarIDs.isEmpty() ? null : new HashSet<>(calendarIDs);
+            this.fields = fields;
+        }
+
+        boolean covers(String calendarID) {
+            return calendarIds == null || calendarIds.contains(calendarID);
+        }
+
+        boolean overlaps(long first, long last) {
+            return first <= end && last >= start;
+        }
+    }
+
+    /**
+     * The calendars and the span a snapshot reads.
+     */
+    private static final class Scope {
+        // null for every calendar
+        final HashSet<String> calendarIds;
+        final long start;
+        final long end;
+
+        private Scope(HashSet<String> calendarIds, long start, long end) {
+            this.calendarIds = calendarIds;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @return the scope covering every subscription, null if there is none
+         */
+        static Scope of(Collection<Subscription> subscriptions) {
+            if (subscriptions.isEmpty()) {
+                return null;
+            }
+            HashSet<String> calendarIds = new HashSet<>();
+            long start = Long.MAX_VALUE;
+            long end = Long.MIN_VALUE;
+            for (Subscription subscription : subscriptions) {
+                if (subscription.calendarIds == null) {
+                    calendarIds = null;
+                } else if (calendarIds != null) {
+                    calendarIds.addAll(subscription.calendarIds);
+                }
+                start = Math.min(start, subscription.start);
+                end = Math.max(end, subscription.end);
+            }
+            return new Scope(calendarIds, start, end);
+        }
+
+        boolean covers(Subscription subscription) {
+            return (calendarIds == null || (subscription.calendarIds != null && calendarIds.containsAll(subscription.calendarIds)))
+                    && start <= subscription.start && end >= subscription.end;
+        }
+    }
+
+    private final ContentResolver resolver;
+    private final Host host;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // notified on the main thread, which also runs the flush, so the debounce needs no lock
+    private final ContentObserver observer = new ContentObserver(handler) {
+        @Override
+        public void onChange(boolean selfChange) {
+            changed();
+        }
+    };
+    private final Runnable flush = new Runnable() {
+        @Override
+        public void run() {
+            pendingSince = 0;
+            host.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    update();
+                }
+            });
+        }
+    };
+
+    // held while a snapshot is taken and compared, and while a subscription starts
+    private final Object updating = new Object();
+    // the rest is guarded by this, the subscriptions' sent instances by updating
+    private final HashMap<String, Subscription> subscriptions = new HashMap<>();
+    private ProviderSnapshot snapshot;
+    private Scope scope;
+    // subscriptions being started, the observer stays registered for them
+    private int starting;
+    private volatile boolean registered;
+    // uptime of the first notification not flushed yet, 0 if there is none, main thread only
+    private long pendingSince;
+
+    EventSubscriptions(ContentResolver resolver, Host host) {
+        this.resolver = resolver;
+        this.host = host;
+    }
+
+    /**
+     * Starts a subscription, replacing one with the same ID.
+     * @return the events overlapping the range
+     * @throws IllegalStateException if the provider cannot be observed, as
+     * the subscription would never be updated
+     */
+    WritableNativeArray subscribe(String id, long start, long end, List<String> calendarIDs, EventFields fields) {
+        Subscription subscription = new Subscription(id, start, end, calendarIDs, fields);
+        synchronized (updating) {
+            Scope wider = null;
+            synchronized (this) {
+                if (!registered) {
+                    try {
+                        resolver.registerContentObserver(CalendarContract.CONTENT_URI, true, observer);
+                        registered = true;
+                    } catch (SecurityException e) {
+                        Log.d("CalendarEvents", "Cannot observe the calendar provider", e);
+                        throw new IllegalStateException("Cannot observe the calendar provider: " + e.getMessage(), e);
+                    }
+                }
+                starting++;
+                if (snapshot == null || !scope.covers(subscription)) {
+                    ArrayList<Subscription> all = new ArrayList<>(subscriptions.values());
+                    all.add(subscription);
+                    wider = Scope.of(all);
+                }
+            }
+
+            try {
+                if (wider != null) {
+                    // taken before the first query, so no change can slip between the two
+                    ProviderSnapshot current = host.snapshot(wider.calendarIds, wider.start, wider.end);
+                    ProviderSnapshot previous;
+                    ArrayList<Subscription> others;
+                    synchronized (this) {
+                        previous = snapshot;
+                        snapshot = current;
+                        scope = wider;
+                        others = new ArrayList<>(subscriptions.values());
+                    }
+                    // the others' changes since the last snapshot, it is replaced
+                    if (previous != null) {
+                        update(others, previous, current);
+                    }
+                }
+
+                WritableNativeArray events = new WritableNativeArray();
+                for (InstanceCache.Instance instance : host.instances(start, end, calendarIDs, null, fields)) {
+                    if (subscription.overlaps(instance.begin, instance.end)) {
+                        remember(subscription, instance);
+                        events.pushMap(instance.event);
+                    }
+                }
+                synchronized (this) {
+                    subscriptions.put(id, subscription);
+                }
+                return events;
+            } finally {
+                synchronized (this) {
+                    starting--;
+                    if (subscriptions.isEmpty() && starting == 0) {
+                        stop();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if there was no subscription with that ID
+     */
+    synchronized boolean unsubscribe(String id) {
+        if (subscriptions.remove(id) == null) {
+            return false;
+        }
+        if (subscriptions.isEmpty() && starting == 0) {
+            stop();
+        }
+        return true;
+    }
+
+    synchronized void close() {
+        subscriptions.clear();
+        stop();
+    }
+
+    private void stop() {
+        if (registered) {
+            resolver.unregisterContentObserver(observer);
+            registered = false;
+        }
+        handler.removeCallbacks(flush);
+        snapshot = null;
+        scope = null;
+    }
+
+    private void changed() {
+        if (!registered) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        if (pendingSince == 0) {
+            pendingSince = now;
+        }
+        handler.removeCallbacks(flush);
+        handler.postDelayed(flush, Math.max(0, Math.min(DEBOUNCE_MILLIS, pendingSince + MAX_DELAY_MILLIS - now)));
+    }
+
+    private void update() {
+        synchronized (updating) {
+            Scope current;
+            synchronized (this) {
+                current = snapshot != null ? Scope.of(subscriptions.values()) : null;
+            }
+            if (current == null) {
+                return;
+            }
+
+            ProviderSnapshot next = host.snapshot(current.calendarIds, current.start, current.end);
+            ProviderSnapshot previous;
+            ArrayList<Subscription> targets;
+            synchronized (this) {
+                // stopped while the snapshot was taken
+                if (snapshot == null) {
+                    return;
+                }
+                previous = snapshot;
+                snapshot = next;
+                scope = current;
+                targets = new ArrayList<>(subscriptions.values());
+            }
+            update(targets, previous, next);
+        }
+    }
+
+    /**
+     * Sends the subscriptions the changes between the snapshots. Holding
+     * {@link #updating}, not this.
+     */
+    private void update(Collection<Subscription> targets, ProviderSnapshot previous, ProviderSnapshot current) {
+        HashSet<String> changedEvents = current.changedEvents(previous);
+        HashSet<String> changedCalendars = current.changedCalendars(previous);
+        if (changedEvents.isEmpty() && changedCalendars.isEmpty()) {
+            return;
+        }
+
+        for (Subscription subscription : targets) {
+            try {
+                update(subscription, previous, current, changedEvents, changedCalendars);
+            } catch (RuntimeException e) {
+                Log.w("CalendarEvents", "Could not update subscription " + subscription.id, e);
+            }
+        }
+    }
+
+    private void update(Subscription subscription, ProviderSnapshot previous, ProviderSnapshot current,
+                        HashSet<String> changedEvents, HashSet<String> changedCalendars) {
+        boolean reload = false;
+        for (String calendarID : changedCalendars) {
+            if (subscription.covers(calendarID)) {
+                reload = true;
+                break;
+            }
+        }
+
+        HashSet<String> eventIds;
+        if (reload) {
+            eventIds = null;
+        } else {
+            eventIds = new HashSet<>();
+            for (String eventID : changedEvents) {
+                ProviderSnapshot.EventState before = previous.events.get(eventID);
+                ProviderSnapshot.EventState after = current.events.get(eventID);
+                if (subscription.sent.containsKey(eventID) || visible(subscription, before) || visible(subscription, after)) {
+                    eventIds.add(eventID);
+                    // an exception also adds or removes an instance of its series
+                    if (before != null && before.originalId != null) {
+                        eventIds.add(before.originalId);
+                    }
+                    if (after != null && after.originalId != null) {
+                        eventIds.add(after.originalId);
+                    }
+                }
+            }
+            if (eventIds.isEmpty()) {
+                return;
+            }
+        }
+
+        HashMap<String, ArrayList<InstanceCache.Instance>> loaded = new HashMap<>();
+        for (InstanceCache.Instance instance : host.instances(subscription.start, subscription.end, subscription.calendarIDs, eventIds, subscription.fields)) {
+            // loaded by ID, the event may have moved to a calendar the subscription does not see
+            ProviderSnapshot.EventState state = current.events.get(instance.eventId);
+            if (subscription.overlaps(instance.begin, instance.end) && (state == null || subscription.covers(state.calendarId))) {
+                ArrayList<InstanceCache.Instance> instances = loaded.get(instance.eventId);
+                if (instances == null) {
+                    instances = new ArrayList<>();
+                    loaded.put(instance.eventId, instances);
+                }
+                instances.add(instance);
+            }
+        }
+
+        if (eventIds == null) {
+            eventIds = new HashSet<>(subscription.sent.keySet());
+            eventIds.addAll(loaded.keySet());
+        }
+
+        WritableNativeArray added = new WritableNativeArray();
+        WritableNativeArray changed = new WritableNativeArray();
+        WritableNativeArray removed = new WritableNativeArray();
+        for (String eventID : eventIds) {
+            HashSet<Long> before = subscription.sent.remove(eventID);
+            ArrayList<InstanceCache.Instance> instances = loaded.get(eventID);
+
+            if (instances != null) {
+                for (InstanceCache.Instance instance : instances) {
+                    if (before != null && before.remove(instance.begin)) {
+                        changed.pushMap(instance.event);
+                    } else {
+                        added.pushMap(instance.event);
+                    }
+                    remember(subscription, instance);
+                }
+            }
+            if (before != null) {
+                for (long begin : before) {
+                    removed.pushMap(removedInstance(eventID, begin, subscription.fields));
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (subscriptions.get(subscription.id) != subscription) {
+                // unsubscribed meanwhile
+                return;
+            }
+        }
+        if (added.size() > 0 || changed.size() > 0 || removed.size() > 0) {
+            WritableNativeMap changes = new WritableNativeMap();
+            changes.putString("subscriptionId", subscription.id);
+            changes.putArray("added", added);
+            changes.putArray("changed", changed);
+            changes.putArray("removed", removed);
+            host.emit(changes);
+        }
+    }
+
+    private static boolean visible(Subscription subscription, ProviderSnapshot.EventState state) {
+        return state != null && subscription.covers(state.calendarId) && subscription.overlaps(state.first, state.last);
+    }
+
+    private static void remember(Subscription subscription, InstanceCache.Instance instance) {
+        HashSet<Long> begins = subscription.sent.get(instance.eventId);
+        if (begins == null) {
+            begins = new HashSet<>();
+            subscription.sent.put(instance.eventId, begins);
+        }
+        begins.add(instance.begin);
+    }
+
+    private static WritableNativeMap removedInstance(String eventID, long begin, EventFields fields) {
+        WritableNativeMap instance = new WritableNativeMap();
+        instance.putString("id", eventID);
+        if (fields.epochDates()) {
+            instance.putDouble("startDate", begin);
+        } else {
+            instance.putString("startDate", Iso8601.format(begin));
+        }
+        return instance;
+    }
+}
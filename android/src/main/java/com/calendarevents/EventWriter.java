@@ -0,0 +1,75 @@
+package com.calendarevents;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+/**
+ * Receives the fields of one serialized event, so the same serialization can
+ * fill a map per event or the columns of a columnar result.
+ */
+interface EventWriter {
+
+    void putString(String key, String value);
+
+    void putDouble(String key, double value);
+
+    void putBoolean(String key, boolean value);
+
+    void putNull(String key);
+
+    void putArray(String key, WritableNativeArray value);
+
+    void putMap(String key, WritableNativeMap value);
+
+    /**
+     * The calendar is taken from {@code relations} only if the writer needs it.
+     */
+    void putCalendar(String calendarID, EventRelations relations);
+
+    /**
+     * Writes every field into one map per event, the default result format.
+     */
+    final class MapWriter implements EventWriter {
+
+        private final WritableNativeMap event;
+
+        MapWriter(WritableNativeMap event) {
+            this.event = event;
+        }
+
+        @Override
+        public void putString(String key, String value) {
+            event.putString(key, value);
+        }
+
+        @Override
+        public void putDouble(String key, double value) {
+            event.putDouble(key, value);
+        }
+
+        @Override
+        public void putBoolean(String key, boolean value) {
+            event.putBoolean(key, value);
+        }
+
+        @Override
+        public void putNull(String key) {
+            event.putNull(key);
+        }
+
+        @Override
+        public void putArray(String key, WritableNativeArray value) {
+            event.putArray(key, value);
+        }
+
+        @Override
+        public void putMap(String key, WritableNativeMap value) {
+            event.putMap(key, value);
+        }
+
+        @Override
+        public void putCalendar(String calendarID, EventRelations relations) {
+            event.putMap("calendar", relations.calendar(calendarID));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.calendarevents;
+
+import java.util.Arrays;
+
+/**
+ * Merges busy intervals and finds the free slots between them.
+ *
+ * The union of intervals only depends on where they begin and end, not on
+ * which begin belongs to which end, so begins and ends are sorted as two
+ * primitive arrays and swept together: a run opens when the first interval
+ * begins and closes when as many have ended as begun. Intervals that touch
+ * are merged. Intervals are kept as flat [begin, end, begin, end...] arrays
+ * of epoch milliseconds, the form they are sent to JS in.
+ */
+final class FreeBusy {
+
+    private long[] begins = new long[64];
+    private long[] ends = new long[64];
+    private int count;
+
+    /**
+     * Adds an interval, clipped to [start, end]. Empty intervals are ignored.
+     */
+    void add(long begin, long end, long start, long stop) {
+        begin = Math.max(begin, start);
+        end = Math.min(end, stop);
+        if (begin >= end) {
+            return;
+        }
+        if (count == begins.length) {
+            begins = Arrays.copyOf(begins, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        begins[count] = begin;
+        ends[count] = end;
+        count++;
+    }
+
+    /**
+     * @return the merged intervals, in order
+     */
+    long[] busy() {
+        Arrays.sort(begins, 0, count);
+        Arrays.sort(ends, 0, count);
+
+        long[] merged = new long[count * 2];
+        int size = 0;
+        int active = 0;
+        long open = 0;
+        for (int i = 0, j = 0; i < count; ) {
+            if (begins[i] <= ends[j]) {
+                if (active++ == 0) {
+                    open = begins[i];
+                }
+                i++;
+            } else {
+                if (--active == 0) {
+                    merged[size++] = open;
+                    merged[size++] = ends[j];
+                }
+                j++;
+            }
+        }
+        // every interval has begun, the run still open ends with the last end
+        if (count > 0) {
+            merged[size++] = open;
+            merged[size++] = ends[count - 1];
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * @param busy       merged intervals from {@link #busy}
+     * @param minLength  the shortest slot to return
+     * @return the gaps of [start, end] not covered by {@code busy}
+     */
+    static long[] free(long[] busy, long start, long end, long minLength) {
+        long[] free = new long[busy.length + 2];
+        int size = 0;
+        long from = start;
+        for (int i = 0; i <= busy.length; i += 2) {
+            long to = i < busy.length ? busy[i] : end;
+            if (to - from >= Math.max(minLength, 1)) {
+                free[size++] = from;
+                free[size++] = to;
+            }
+            if (i < busy.length) {
+                from = busy[i + 1];
+            }
+        }
+        return Arrays.copyOf(free, size);
+    }
+}
@@ -0,0 +1,421 @@
+package com.calendarevents;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.provider.CalendarContract;
+import android.util.Log;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Serialized findAllEvents results keyed by range, calendar set and fields.
+ *
+ * Entries keep every instance overlapping their range, not only the ones
+ * inside it, so a request covered by several adjacent entries can be stitched
+ * together without losing instances that cross an entry boundary.
+ *
+ * Writes made through the module evict the entries holding the events they
+ * name. Other provider changes only mark the cache stale, and the next lookup
+ * reads the Events columns of every event and calendar the entries cover,
+ * and the attendees and reminders of the events the entries hold: the events
+ * and calendars that changed evict the entries they touch. The other events'
+ * attendees and reminders are not read, an event that is not cached only
+ * matters once it moves into an entry's range, which changes its columns.
+ */
+final class InstanceCache {
+
+    static final int MAX_ENTRIES = 16;
+    static final int MAX_INSTANCES = 20000;
+
+    static final class Instance {
+        final String eventId;
+        final long begin;
+        final long end;
+        final WritableNativeMap event;
+
+        Instance(String eventId, long begin, long end, WritableNativeMap event) {
+            this.eventId = eventId;
+            this.begin = begin;
+            this.end = end;
+            this.event = event;
+        }
+    }
+
+    private static final class Entry {
+        final String scope;
+        final HashSet<String> calendarIds;
+        final long start;
+        final long end;
+        final ArrayList<Instance> instances;
+        final HashSet<String> eventIds = new HashSet<>();
+
+        Entry(String scope, HashSet<String> calendarIds, long start, long end, ArrayList<Instance> instances) {
+            this.scope = scope;
+            this.calendarIds = calendarIds;
+            this.start = start;
+            this.end = end;
+            this.instances = instances;
+            for (Instance instance : instances) {
+                eventIds.add(instance.eventId);
+            }
+        }
+
+        boolean covers(String calendarID) {
+            return calendarIds == null || calendarIds.contains(calendarID);
+        }
+
+        boolean overlaps(long first, long last) {
+            return first <= end && last >= start;
+        }
+    }
+
+    private static final Comparator<Instance> BY_BEGIN = new Comparator<Instance>() {
+        @Override
+        public int compare(Instance a, Instance b) {
+            return a.begin < b.begin ? -1 : (a.begin == b.begin ? 0 : 1);
+        }
+    };
+
+    private final ContentResolver resolver;
+    private final ProviderQuery query;
+    private final ContentObserver observer = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange) {
+            markStale();
+        }
+    };
+
+    // least recently used first
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    private int instanceCount;
+    // the marked calendars and their events as of the last validation
+    private HashMap<String, ProviderSnapshot.EventState> events = new HashMap<>();
+    private HashMap<String, Long> calendars = new HashMap<>();
+    // null once every calendar is marked
+    private HashSet<String> marked = new HashSet<>();
+    // the attendee and reminder hashes of the cached events as of the last validation
+    private HashMap<String, Long> children = new HashMap<>();
+    private volatile boolean stale;
+    private int validations;
+    private boolean registered;
+
+    InstanceCache(ContentResolver resolver, ProviderQuery query) {
+        this.resolver = resolver;
+        this.query = query;
+    }
+
+    /**
+     * @param calendarIds the calendars of the scope, null for every calendar
+     * @return the cached events inside the range, or null if the cache does
+     * not cover it. A miss should be followed by {@link #token()}, the query,
+     * and {@link #put}.
+     */
+    synchronized WritableNativeArray find(long start, long end, String scope, HashSet<String> calendarIds) {
+        if (!observe()) {
+            return null;
+        }
+
+        if (stale) {
+            validate();
+        }
+        // marked before the first query, so no change can slip between the two
+        mark(calendarIds);
+
+        ArrayList<Entry> candidates = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.scope.equals(scope) && entry.overlaps(start, end)) {
+                candidates.add(entry);
+            }
+        }
+        Collections.sort(candidates, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return a.start < b.start ? -1 : (a.start == b.start ? 0 : 1);
+            }
+        });
+
+        ArrayList<Entry> used = new ArrayList<>();
+        long covered = start;
+        boolean complete = false;
+        for (Entry entry : candidates) {
+            if (entry.start > covered) {
+                break;
+            }
+            if (entry.end >= covered) {
+                used.add(entry);
+                covered = entry.end;
+            }
+            if (covered >= end) {
+                complete = true;
+                break;
+            }
+        }
+
+        if (!complete) {
+            return null;
+        }
+
+        ArrayList<Instance> matches = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        for (Entry entry : used) {
+            entries.remove(entry);
+            entries.add(entry);
+
+            for (Instance instance : entry.instances) {
+                if (instance.begin >= start && instance.end <= end && seen.add(instance.eventId + ":" + instance.begin)) {
+                    matches.add(instance);
+                }
+            }
+        }
+        if (used.size() > 1) {
+            Collections.sort(matches, BY_BEGIN);
+        }
+
+        WritableNativeArray results = new WritableNativeArray();
+        for (Instance instance : matches) {
+            results.pushMap(ReadableCopies.copy(instance.event));
+        }
+        return results;
+    }
+
+    synchronized int token() {
+        return validations;
+    }
+
+    /**
+     * Caches every instance overlapping the range. Dropped if the cache was
+     * validated, written through or marked stale since {@code token} was
+     * taken, because the instances may predate a change the marks already
+     * account for.
+     */
+    synchronized void put(int token, long start, long end, String scope, HashSet<String> calendarIds, ArrayList<Instance> instances) {
+        if (!registered || !covered(calendarIds) || stale || token != validations || instances.size() > MAX_INSTANCES) {
+            return;
+        }
+
+        HashSet<String> unknown = new HashSet<>();
+        for (Instance instance : instances) {
+            if (!children.containsKey(instance.eventId)) {
+                unknown.add(instance.eventId);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            children.putAll(ProviderSnapshot.children(query, unknown));
+            // a change that landed while they were read may not be in the instances
+            if (stale) {
+                return;
+            }
+        }
+
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            if (entry.scope.equals(scope) && entry.start >= start && entry.end <= end) {
+                remove(i);
+            }
+        }
+
+        entries.add(new Entry(scope, calendarIds, start, end, instances));
+        instanceCount += instances.size();
+
+        while (entries.size() > MAX_ENTRIES || instanceCount > MAX_INSTANCES) {
+            remove(0);
+        }
+    }
+
+    void markStale() {
+        stale = true;
+    }
+
+    /**
+     * Evicts the entries holding any of the events a write changed, and marks
+     * the cache stale for the events it added or moved.
+     * @param eventIDs null if the write changed calendars, which evicts everything
+     */
+    synchronized void changed(Collection<String> eventIDs) {
+        validations++;
+        stale = true;
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (eventIDs == null || !Collections.disjoint(entries.get(i).eventIds, eventIDs)) {
+                remove(i);
+            }
+        }
+    }
+
+    synchronized void close() {
+        if (registered) {
+            resolver.unregisterContentObserver(observer);
+            registered = false;
+        }
+        entries.clear();
+        instanceCount = 0;
+        unmark();
+    }
+
+    private boolean observe() {
+        if (!registered) {
+            try {
+                resolver.registerContentObserver(CalendarContract.CONTENT_URI, true, observer);
+                registered = true;
+            } catch (SecurityException e) {
+                Log.d("CalendarEvents", "Instance cache disabled, cannot observe the calendar provider", e);
+            }
+        }
+        return registered;
+    }
+
+    /**
+     * Evicts the entries a change since the last validation touched, and
+     * marks only the calendars the remaining entries cover.
+     */
+    private void validate() {
+        validations++;
+        if (entries.isEmpty()) {
+            stale = false;
+            unmark();
+            return;
+        }
+
+        HashSet<String> calendarIds = new HashSet<>();
+        for (Entry entry : entries) {
+            if (entry.calendarIds == null) {
+                calendarIds = null;
+                break;
+            }
+            calendarIds.addAll(entry.calendarIds);
+        }
+
+        HashSet<String> held = new HashSet<>();
+        for (Entry entry : entries) {
+            held.addAll(entry.eventIds);
+        }
+
+        // cleared first, a change that lands while we read is picked up next time
+        stale = false;
+        HashMap<String, ProviderSnapshot.EventState> currentEvents;
+        HashMap<String, Long> currentCalendars;
+        HashMap<String, Long> currentChildren;
+        try {
+            currentEvents = ProviderSnapshot.marks(query, calendarIds);
+            currentCalendars = ProviderSnapshot.calendars(query, calendarIds);
+            currentChildren = ProviderSnapshot.children(query, held);
+        } catch (RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+
+        HashSet<String> changedEvents = new HashSet<>();
+        for (String eventID : held) {
+            if (!currentChildren.get(eventID).equals(children.get(eventID))) {
+                changedEvents.add(eventID);
+            }
+        }
+        ArrayList<ProviderSnapshot.EventState> states = new ArrayList<>();
+        for (Map.Entry<String, ProviderSnapshot.EventState> entry : currentEvents.entrySet()) {
+            ProviderSnapshot.EventState before = events.get(entry.getKey());
+            if (before == null || before.hash != entry.getValue().hash) {
+                changedEvents.add(entry.getKey());
+                states.add(entry.getValue());
+                if (before != null) {
+                    states.add(before);
+                }
+            }
+        }
+        // gone, or moved to a calendar that is not marked anymore
+        for (Map.Entry<String, ProviderSnapshot.EventState> entry : events.entrySet()) {
+            if (!currentEvents.containsKey(entry.getKey())) {
+                changedEvents.add(entry.getKey());
+                states.add(entry.getValue());
+            }
+        }
+
+        HashSet<String> changedCalendars = new HashSet<>();
+        for (Map.Entry<String, Long> entry : currentCalendars.entrySet()) {
+            if (!entry.getValue().equals(calendars.get(entry.getKey()))) {
+                changedCalendars.add(entry.getKey());
+            }
+        }
+        for (String calendarID : calendars.keySet()) {
+            if (!currentCalendars.containsKey(calendarID)) {
+                changedCalendars.add(calendarID);
+            }
+        }
+
+        if (!changedEvents.isEmpty() || !changedCalendars.isEmpty()) {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                if (affected(entries.get(i), changedEvents, changedCalendars, states)) {
+                    remove(i);
+                }
+            }
+        }
+
+        events = currentEvents;
+        calendars = currentCalendars;
+        children = currentChildren;
+        marked = calendarIds;
+    }
+
+    /**
+     * Reads the calendars a lookup is about to query, if they are not marked yet.
+     * @param calendarIds null for every calendar
+     */
+    private void mark(HashSet<String> calendarIds) {
+        if (covered(calendarIds)) {
+            return;
+        }
+        HashSet<String> missing = null;
+        if (calendarIds != null) {
+            missing = new HashSet<>(calendarIds);
+            missing.removeAll(marked);
+        }
+        events.putAll(ProviderSnapshot.marks(query, missing));
+        calendars.putAll(ProviderSnapshot.calendars(query, missing));
+        if (missing == null) {
+            marked = null;
+        } else {
+            marked.addAll(missing);
+        }
+    }
+
+    private boolean covered(HashSet<String> calendarIds) {
+        return marked == null || (calendarIds != null && marked.containsAll(calendarIds));
+    }
+
+    private void unmark() {
+        events = new HashMap<>();
+        calendars = new HashMap<>();
+        marked = new HashSet<>();
+        children = new HashMap<>();
+    }
+
+    private static boolean affected(Entry entry, HashSet<String> changedEvents, HashSet<String> changedCalendars, ArrayList<ProviderSnapshot.EventState> states) {
+        for (String eventID : changedEvents) {
+            if (entry.eventIds.contains(eventID)) {
+                return true;
+            }
+        }
+        for (String calendarID : changedCalendars) {
+            if (entry.covers(calendarID)) {
+                return true;
+            }
+        }
+        for (ProviderSnapshot.EventState state : states) {
+            if (entry.covers(state.calendarId) && entry.overlaps(state.first, state.last)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(int index) {
+        instanceCount -= entries.remove(index).instances.size();
+    }
+}
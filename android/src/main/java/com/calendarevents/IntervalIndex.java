@@ -0,0 +1,97 @@
+package com.calendarevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * An augmented interval tree over intervals sorted by begin, finding every
+ * interval that overlaps a query in O(log n + hits).
+ *
+ * The tree is implicit: the middle of any slice of the sorted arrays is the
+ * root of that slice, the halves on either side are its subtrees. Each root
+ * stores the latest end in its slice, so a query skips a whole slice that
+ * ends before the query starts, and the slice right of a root that begins
+ * after the query ends. Built once, it is never modified.
+ */
+final class IntervalIndex {
+
+    private final long[] begins;
+    private final long[] ends;
+    // where each sorted interval was in the arrays given to the constructor
+    private final int[] positions;
+    private final long[] maxEnds;
+
+    /**
+     * @param begins inclusive
+     * @param ends   exclusive
+     */
+    IntervalIndex(final long[] begins, long[] ends, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return begins[a] < begins[b] ? -1 : (begins[a] == begins[b] ? 0 : 1);
+            }
+        });
+
+        this.begins = new long[count];
+        this.ends = new long[count];
+        this.positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.begins[i] = begins[order[i]];
+            this.ends[i] = ends[order[i]];
+            this.positions[i] = order[i];
+        }
+        this.maxEnds = new long[count];
+        build(0, count);
+    }
+
+    private long build(int from, int to) {
+        if (from >= to) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (from + to) >>> 1;
+        long max = Math.max(ends[mid], Math.max(build(from, mid), build(mid + 1, to)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    /**
+     * @return the constructor positions of the intervals overlapping
+     * [start, end), by begin. Intervals that only touch it do not overlap.
+     */
+    ArrayList<Integer> overlapping(long start, long end) {
+        ArrayList<Integer> sorted = new ArrayList<>();
+        collect(0, begins.length, start, end, sorted);
+        // the sorted order is the begin order
+        Collections.sort(sorted);
+
+        ArrayList<Integer> hits = new ArrayList<>(sorted.size());
+        for (int index : sorted) {
+            hits.add(positions[index]);
+        }
+        return hits;
+    }
+
+    private void collect(int from, int to, long start, long end, ArrayList<Integer> hits) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        if (maxEnds[mid] <= start) {
+            return;
+        }
+        collect(from, mid, start, end, hits);
+        if (begins[mid] < end) {
+            if (ends[mid] > start) {
+                hits.add(mid);
+            }
+            collect(mid + 1, to, start, end, hits);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.calendarevents;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Converts between epoch milliseconds and {@code yyyy-MM-dd'T'HH:mm:ss.SSS'Z'}.
+ *
+ * UTC dates in that exact shape, which is what {@code Date.toISOString()}
+ * produces, are parsed and formatted by hand with per-thread buffers, so they
+ * take no lock and allocate nothing but the resulting string. Anything else
+ * (a date without milliseconds, a year before the Gregorian cutover or after
+ * 9999, local time) goes through a per-thread SimpleDateFormat, which accepts
+ * what it always did.
+ */
+final class Iso8601 {
+
+    static final Iso8601 UTC = new Iso8601(false);
+    /** Reads dates as device local time, for the `skipAndroidTimezone` save option. */
+    static final Iso8601 LOCAL = new Iso8601(true);
+
+    private static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+    private static final int LENGTH = 24;
+    private static final long MILLIS_PER_DAY = 86400000L;
+    // SimpleDateFormat switches to the Julian calendar before October 1582
+    private static final int FIRST_GREGORIAN_YEAR = 1583;
+
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[LENGTH];
+        }
+    };
+
+    private static final ThreadLocal<SimpleDateFormat> UTC_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat(PATTERN);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            return format;
+        }
+    };
+
+    private static final ThreadLocal<SimpleDateFormat> LOCAL_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat(PATTERN);
+        }
+    };
+
+    private final boolean local;
+
+    private Iso8601(boolean local) {
+        this.local = local;
+    }
+
+    long parse(String date) throws ParseException {
+        if (local) {
+            SimpleDateFormat format = LOCAL_FORMAT.get();
+            // the default zone can change while the app runs
+            format.setTimeZone(TimeZone.getDefault());
+            return format.parse(date).getTime();
+        }
+
+        long millis = parseExact(date);
+        if (millis != Long.MIN_VALUE) {
+            return millis;
+        }
+        return UTC_FORMAT.get().parse(date).getTime();
+    }
+
+    static String format(long millis) {
+        long days = floorDiv(millis, MILLIS_PER_DAY);
+        int millisOfDay = (int) (millis - days * MILLIS_PER_DAY);
+
+        // civil-from-days, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < FIRST_GREGORIAN_YEAR || year > 9999) {
+            return UTC_FORMAT.get().format(new Date(millis));
+        }
+
+        char[] buffer = BUFFER.get();
+        digits(buffer, 0, (int) year, 4);
+        buffer[4] = '-';
+        digits(buffer, 5, month, 2);
+        buffer[7] = '-';
+        digits(buffer, 8, day, 2);
+        buffer[10] = 'T';
+        digits(buffer, 11, millisOfDay / 3600000, 2);
+        buffer[13] = ':';
+        digits(buffer, 14, millisOfDay / 60000 % 60, 2);
+        buffer[16] = ':';
+        digits(buffer, 17, millisOfDay / 1000 % 60, 2);
+        buffer[19] = '.';
+        digits(buffer, 20, millisOfDay % 1000, 3);
+        buffer[23] = 'Z';
+        return new String(buffer, 0, LENGTH);
+    }
+
+    /**
+     * @return the time, or Long.MIN_VALUE if the string is not exactly in the
+     * expected shape or holds an out of range field, which the lenient
+     * SimpleDateFormat fallback handles
+     */
+    private static long parseExact(String date) {
+        if (date.length() != LENGTH
+                || date.charAt(4) != '-' || date.charAt(7) != '-' || date.charAt(10) != 'T'
+                || date.charAt(13) != ':' || date.charAt(16) != ':' || date.charAt(19) != '.'
+                || date.charAt(23) != 'Z') {
+            return Long.MIN_VALUE;
+        }
+
+        int year = number(date, 0, 4);
+        int month = number(date, 5, 2);
+        int day = number(date, 8, 2);
+        int hour = number(date, 11, 2);
+        int minute = number(date, 14, 2);
+        int second = number(date, 17, 2);
+        int millis = number(date, 20, 3);
+
+        if (year < FIRST_GREGORIAN_YEAR || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0) {
+            return Long.MIN_VALUE;
+        }
+
+        return utc(year, month, day, hour, minute, second, millis);
+    }
+
+    /**
+     * Epoch milliseconds of a proleptic Gregorian UTC date-time, month 1-12.
+     */
+    static long utc(int year, int month, int day, int hour, int minute, int second, int millis) {
+        // days-from-civil, the inverse of the conversion in format()
+        long y = month <= 2 ? year - 1 : year;
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * 146097 + dayOfEra - 719468;
+
+        return days * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L + second * 1000L + millis;
+    }
+
+    private static int number(String value, int from, int length) {
+        int result = 0;
+        for (int i = from; i < from + length; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    // Math.floorDiv needs API 24
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+    }
+
+    private static void digits(char[] buffer, int from, int value, int length) {
+        for (int i = from + length - 1; i >= from; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
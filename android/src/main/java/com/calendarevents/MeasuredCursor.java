@@ -0,0 +1,91 @@
+package com.calendarevents;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+/**
+ * Counts the rows read from a provider cursor and reports the query when the
+ * cursor is closed. Asking the cursor for its count up front would fill its
+ * whole window before the first row is used, so rows are counted as they are
+ * reached instead.
+ *
+ * A provider cursor runs its query on the first move, that move is timed as
+ * part of the query.
+ */
+final class MeasuredCursor extends CursorWrapper {
+
+    interface Listener {
+        void closed(int rows, long nanos);
+    }
+
+    private final Listener listener;
+    private long nanos;
+    private boolean moved;
+    private int rows;
+    private boolean reported;
+
+    /**
+     * @param nanos the time the provider took to return the cursor
+     */
+    MeasuredCursor(Cursor cursor, long nanos, Listener listener) {
+        super(cursor);
+        this.nanos = nanos;
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        long start = moved ? 0 : System.nanoTime();
+        return moved(start, super.moveToFirst());
+    }
+
+    @Override
+    public boolean moveToNext() {
+        long start = moved ? 0 : System.nanoTime();
+        return moved(start, super.moveToNext());
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        long start = moved ? 0 : System.nanoTime();
+        return moved(start, super.moveToPosition(position));
+    }
+
+    @Override
+    public boolean moveToLast() {
+        long start = moved ? 0 : System.nanoTime();
+        return moved(start, super.moveToLast());
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        long start = moved ? 0 : System.nanoTime();
+        return moved(start, super.moveToPrevious());
+    }
+
+    @Override
+    public boolean move(int offset) {
+        long start = moved ? 0 : System.nanoTime();
+        return moved(start, super.move(offset));
+    }
+
+    @Override
+    public void close() {
+        if (!reported) {
+            reported = true;
+            listener.closed(rows, nanos);
+        }
+        super.close();
+    }
+
+    private boolean moved(long start, boolean onRow) {
+        if (!moved) {
+            nanos += System.nanoTime() - start;
+            moved = true;
+        }
+        if (onRow) {
+            rows = Math.max(rows, getPosition() + 1);
+        }
+        return onRow;
+    }
+}
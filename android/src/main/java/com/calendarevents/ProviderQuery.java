@@ -0,0 +1,16 @@
+package com.calendarevents;
+
+import android.database.Cursor;
+import android.net.Uri;
+
+/**
+ * Queries the calendar provider for the call running on this thread, so the
+ * query is measured with it and cancelled with it.
+ */
+interface ProviderQuery {
+
+    /**
+     * @return the cursor, or null if the provider returned none
+     */
+    Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder);
+}
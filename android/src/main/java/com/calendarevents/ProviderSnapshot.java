@@ -0,0 +1,342 @@
+package com.calendarevents;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.CalendarContract;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * A content hash per event and per calendar. The calendar provider notifies
+ * every change on its root URI without saying what changed, so comparing two
+ * snapshots is how we find the events that actually did. Taking one reads the
+ * Events, Attendees, Reminders and Calendars tables but expands no recurrence.
+ *
+ * {@link #marks} is the cheap variant: a hash of the Events columns alone,
+ * without the attendees and reminders, for callers that cannot read
+ * everything. {@link #children} hashes those for the events that matter.
+ */
+final class ProviderSnapshot {
+
+    static final class EventState {
+        final String calendarId;
+        // the series an exception belongs to, or null
+        final String originalId;
+        final long first;
+        final long last;
+        final long hash;
+
+        EventState(String calendarId, String originalId, long first, long last, long hash) {
+            this.calendarId = calendarId;
+            this.originalId = originalId;
+            this.first = first;
+            this.last = last;
+            this.hash = hash;
+        }
+    }
+
+    private static final String[] EVENT_PROJECTION = new String[]{
+            CalendarContract.Events._ID,
+            CalendarContract.Events.CALENDAR_ID,
+            // hashed from here on
+            CalendarContract.Events.DTSTART,
+            CalendarContract.Events.LAST_DATE,
+            CalendarContract.Events.ORIGINAL_INSTANCE_TIME,
+            CalendarContract.Events.DTEND,
+            CalendarContract.Events.DURATION,
+            CalendarContract.Events.RRULE,
+            CalendarContract.Events.RDATE,
+            CalendarContract.Events.EXRULE,
+            CalendarContract.Events.EXDATE,
+            CalendarContract.Events.ORIGINAL_ID,
+            CalendarContract.Events.TITLE,
+            CalendarContract.Events.DESCRIPTION,
+            CalendarContract.Events.EVENT_LOCATION,
+            CalendarContract.Events.ALL_DAY,
+            CalendarContract.Events.AVAILABILITY,
+            CalendarContract.Events.HAS_ALARM,
+            CalendarContract.Events.STATUS,
+            CalendarContract.Events.DELETED
+    };
+    private static final int FIRST_HASHED_EVENT_COLUMN = 2;
+
+    // every Events column that is serialized, and the sync state
+    private static final String[] MARK_PROJECTION = new String[]{
+            CalendarContract.Events._ID,
+            CalendarContract.Events.CALENDAR_ID,
+            // hashed from here on
+            CalendarContract.Events.DTSTART,
+            CalendarContract.Events.LAST_DATE,
+            CalendarContract.Events.ORIGINAL_INSTANCE_TIME,
+            CalendarContract.Events.ORIGINAL_ID,
+            CalendarContract.Events.DTEND,
+            CalendarContract.Events.DURATION,
+            CalendarContract.Events.RRULE,
+            CalendarContract.Events.RDATE,
+            CalendarContract.Events.EXRULE,
+            CalendarContract.Events.EXDATE,
+            CalendarContract.Events.TITLE,
+            CalendarContract.Events.DESCRIPTION,
+            CalendarContract.Events.EVENT_LOCATION,
+            CalendarContract.Events.ALL_DAY,
+            CalendarContract.Events.AVAILABILITY,
+            CalendarContract.Events.HAS_ALARM,
+            CalendarContract.Events.STATUS,
+            CalendarContract.Events._SYNC_ID,
+            CalendarContract.Events.DIRTY,
+            CalendarContract.Events.DELETED
+    };
+
+    private static final String[] CALENDAR_PROJECTION = new String[]{
+            CalendarContract.Calendars._ID,
+            CalendarContract.Calendars.CALENDAR_DISPLAY_NAME,
+            CalendarContract.Calendars.ACCOUNT_NAME,
+            CalendarContract.Calendars.ACCOUNT_TYPE,
+            CalendarContract.Calendars.CALENDAR_ACCESS_LEVEL,
+            CalendarContract.Calendars.ALLOWED_AVAILABILITY,
+            CalendarContract.Calendars.CALENDAR_COLOR,
+            CalendarContract.Calendars.VISIBLE
+    };
+
+    final HashMap<String, EventState> events;
+    final HashMap<String, Long> calendars;
+
+    private ProviderSnapshot(HashMap<String, EventState> events, HashMap<String, Long> calendars) {
+        this.events = events;
+        this.calendars = calendars;
+    }
+
+    /**
+     * Reads the events whose span, exceptions included, overlaps the range,
+     * and their calendars. An event that leaves the scope is missing from
+     * the snapshot as if it was deleted.
+     * @param calendarIds the calendars to read, null for every calendar
+     */
+    static ProviderSnapshot load(ProviderQuery query, Collection<String> calendarIds, long start, long end) {
+        Selection selection = new Selection();
+        if (calendarIds != null) {
+            selection.in(CalendarContract.Events.CALENDAR_ID, calendarIds.toArray(new String[calendarIds.size()]));
+        }
+        // the span state() computes
+        selection.where(CalendarContract.Events.DTSTART + " IS NULL OR " + CalendarContract.Events.DTSTART + " <= ? OR "
+                + CalendarContract.Events.ORIGINAL_INSTANCE_TIME + " <= ?", end, end);
+        selection.where(CalendarContract.Events.LAST_DATE + " IS NULL OR " + CalendarContract.Events.LAST_DATE + " >= ? OR "
+                + CalendarContract.Events.ORIGINAL_INSTANCE_TIME + " >= ?", start, start);
+
+        HashMap<String, EventState> rows = new HashMap<>();
+        addEvents(query, selection, new HashMap<String, Long>(), rows);
+
+        HashMap<String, Long> childHashes = new HashMap<>();
+        for (String[] chunk : Selection.chunk(rows.keySet())) {
+            addChildHashes(query, childHashes, chunk);
+        }
+        HashMap<String, EventState> events = new HashMap<>();
+        for (Map.Entry<String, EventState> entry : rows.entrySet()) {
+            EventState row = entry.getValue();
+            events.put(entry.getKey(), new EventState(row.calendarId, row.originalId, row.first, row.last,
+                    withChildren(row.hash, childHashes.get(entry.getKey()))));
+        }
+        return new ProviderSnapshot(events, calendars(query, calendarIds));
+    }
+
+    /**
+     * @param eventIDs the events to read, null for every event
+     */
+    static HashMap<String, EventState> events(ProviderQuery query, Collection<String> eventIDs) {
+        HashMap<String, EventState> events = new HashMap<>();
+        if (eventIDs == null) {
+            HashMap<String, Long> childHashes = new HashMap<>();
+            addChildHashes(query, childHashes, null);
+            addEvents(query, new Selection(), childHashes, events);
+        } else {
+            for (String[] chunk : Selection.chunk(eventIDs)) {
+                HashMap<String, Long> childHashes = new HashMap<>();
+                addChildHashes(query, childHashes, chunk);
+                addEvents(query, new Selection().in(CalendarContract.Events._ID, chunk), childHashes, events);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Reads only {@link #MARK_PROJECTION}. Changes to an event's attendees or
+     * reminders alone do not change the hash, see {@link #children}.
+     * @param calendarIds the calendars to read, null for every calendar
+     */
+    static HashMap<String, EventState> marks(ProviderQuery query, Collection<String> calendarIds) {
+        HashMap<String, EventState> events = new HashMap<>();
+        // the calendar list is short, it does not need chunking
+        Selection selection = new Selection();
+        if (calendarIds != null) {
+            selection.in(CalendarContract.Events.CALENDAR_ID, calendarIds.toArray(new String[calendarIds.size()]));
+        }
+        Cursor cursor = query.query(CalendarContract.Events.CONTENT_URI, MARK_PROJECTION, selection.sql(), selection.args(), null);
+        if (cursor == null) {
+            return events;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                events.put(cursor.getString(0), state(cursor, 5, ContentHash.row(cursor, 2)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return events;
+    }
+
+    /**
+     * @return a hash of the attendees and reminders of each of the events,
+     * 0 for an event that has none
+     */
+    static HashMap<String, Long> children(ProviderQuery query, Collection<String> eventIDs) {
+        HashMap<String, Long> hashes = new HashMap<>();
+        for (String[] chunk : Selection.chunk(eventIDs)) {
+            addChildHashes(query, hashes, chunk);
+        }
+        for (String eventID : eventIDs) {
+            if (!hashes.containsKey(eventID)) {
+                hashes.put(eventID, 0L);
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * @param calendarIds the calendars to read, null for every calendar
+     */
+    static HashMap<String, Long> calendars(ProviderQuery query, Collection<String> calendarIds) {
+        HashMap<String, Long> calendars = new HashMap<>();
+        Selection selection = new Selection();
+        if (calendarIds != null) {
+            selection.in(CalendarContract.Calendars._ID, calendarIds.toArray(new String[calendarIds.size()]));
+        }
+        Cursor cursor = query.query(CalendarContract.Calendars.CONTENT_URI, CALENDAR_PROJECTION, selection.sql(), selection.args(), null);
+        if (cursor == null) {
+            return calendars;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                calendars.put(cursor.getString(0), ContentHash.row(cursor, 1));
+            }
+        } finally {
+            cursor.close();
+        }
+        return calendars;
+    }
+
+    private static void addEvents(ProviderQuery query, Selection selection, HashMap<String, Long> childHashes, HashMap<String, EventState> events) {
+        Cursor cursor = query.query(CalendarContract.Events.CONTENT_URI, EVENT_PROJECTION, selection.sql(), selection.args(), null);
+        if (cursor == null) {
+            return;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                String eventID = cursor.getString(0);
+                long hash = withChildren(ContentHash.row(cursor, FIRST_HASHED_EVENT_COLUMN), childHashes.get(eventID));
+                events.put(eventID, state(cursor, 11, hash));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long withChildren(long hash, Long children) {
+        return children != null ? hash * 31 + children : hash;
+    }
+
+    /**
+     * Reads an event row whose projection starts with _ID, CALENDAR_ID,
+     * DTSTART, LAST_DATE and ORIGINAL_INSTANCE_TIME.
+     */
+    private static EventState state(Cursor cursor, int originalIdColumn, long hash) {
+        long first = cursor.isNull(2) ? Long.MIN_VALUE : cursor.getLong(2);
+        long last = cursor.isNull(3) ? Long.MAX_VALUE : cursor.getLong(3);
+
+        // an exception also changes the instance of the series it replaces
+        if (!cursor.isNull(4)) {
+            long originalInstanceTime = cursor.getLong(4);
+            first = Math.min(first, originalInstanceTime);
+            last = Math.max(last, originalInstanceTime);
+        }
+        return new EventState(cursor.getString(1), cursor.getString(originalIdColumn), first, last, hash);
+    }
+
+    /**
+     * @param eventIDs at most one chunk, null for every event
+     */
+    private static void addChildHashes(ProviderQuery query, HashMap<String, Long> hashes, String[] eventIDs) {
+        addChildHashes(query, hashes, eventIDs, CalendarContract.Attendees.CONTENT_URI, new String[]{
+                CalendarContract.Attendees.EVENT_ID,
+                CalendarContract.Attendees.ATTENDEE_NAME,
+                CalendarContract.Attendees.ATTENDEE_EMAIL,
+                CalendarContract.Attendees.ATTENDEE_TYPE,
+                CalendarContract.Attendees.ATTENDEE_RELATIONSHIP,
+                CalendarContract.Attendees.ATTENDEE_STATUS
+        });
+        addChildHashes(query, hashes, eventIDs, CalendarContract.Reminders.CONTENT_URI, new String[]{
+                CalendarContract.Reminders.EVENT_ID,
+                CalendarContract.Reminders.MINUTES,
+                CalendarContract.Reminders.METHOD
+        });
+    }
+
+    /**
+     * Child rows come back in no particular order, so their hashes are summed.
+     */
+    private static void addChildHashes(ProviderQuery query, HashMap<String, Long> hashes, String[] eventIDs, Uri uri, String[] projection) {
+        Selection selection = new Selection();
+        if (eventIDs != null) {
+            selection.in(projection[0], eventIDs);
+        }
+        Cursor cursor = query.query(uri, projection, selection.sql(), selection.args(), null);
+        if (cursor == null) {
+            return;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                String eventID = cursor.getString(0);
+                Long hash = hashes.get(eventID);
+                hashes.put(eventID, (hash != null ? hash : 0L) + ContentHash.row(cursor, 1));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * IDs of the events that were added, removed or changed since {@code previous}.
+     */
+    HashSet<String> changedEvents(ProviderSnapshot previous) {
+        HashSet<String> changed = new HashSet<>();
+        for (String eventID : events.keySet()) {
+            EventState before = previous.events.get(eventID);
+            if (before == null || before.hash != events.get(eventID).hash) {
+                changed.add(eventID);
+            }
+        }
+        for (String eventID : previous.events.keySet()) {
+            if (!events.containsKey(eventID)) {
+                changed.add(eventID);
+            }
+        }
+        return changed;
+    }
+
+    HashSet<String> changedCalendars(ProviderSnapshot previous) {
+        HashSet<String> changed = new HashSet<>();
+        for (String calendarID : calendars.keySet()) {
+            if (!calendars.get(calendarID).equals(previous.calendars.get(calendarID))) {
+                changed.add(calendarID);
+            }
+        }
+        for (String calendarID : previous.calendars.keySet()) {
+            if (!calendars.containsKey(calendarID)) {
+                changed.add(calendarID);
+            }
+        }
+        return changed;
+    }
+}
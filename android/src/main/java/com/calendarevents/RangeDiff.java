@@ -0,0 +1,117 @@
+package com.calendarevents;
+
+import com.facebook.react.bridge.Dynamic;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
+
+import java.util.HashMap;
+
+/**
+ * Compares a range read with what the caller already holds, given as the
+ * `since` option of findAllEvents: either the content hash of every instance
+ * it has, keyed by {@link #key}, or the digest of its whole range.
+ *
+ * With hashes only new and changed instances are sent, plus the keys of the
+ * ones that are gone. A digest can only tell whether anything changed, so a
+ * mismatch sends the whole range.
+ */
+final class RangeDiff {
+
+    // the caller's digest, or null if it sent hashes
+    private final String digest;
+    // the caller's hashes not matched by an instance of the range yet
+    private final HashMap<String, String> hashes = new HashMap<>();
+    private long sum;
+    private int matched;
+
+    RangeDiff(Dynamic since) {
+        if (since.getType() == ReadableType.String) {
+            digest = since.asString();
+            return;
+        }
+        digest = null;
+        if (since.getType() == ReadableType.Map) {
+            ReadableMap map = since.asMap();
+            ReadableMapKeySetIterator keys = map.keySetIterator();
+            while (keys.hasNextKey()) {
+                String key = keys.nextKey();
+                if (valid(key) && map.getType(key) == ReadableType.String) {
+                    hashes.put(key, map.getString(key));
+                }
+            }
+        }
+    }
+
+    static String key(String eventID, long begin) {
+        return eventID + ":" + begin;
+    }
+
+    static String hex(long hash) {
+        return Long.toHexString(hash);
+    }
+
+    /**
+     * Adds an instance of the range to the digest.
+     * @return false if the caller already has it with this hash
+     */
+    boolean add(String key, long hash) {
+        // summed, so the digest does not depend on the order of the rows
+        sum += ContentHash.mix(hash, key);
+        if (digest == null && hex(hash).equals(hashes.remove(key))) {
+            matched++;
+            return false;
+        }
+        return true;
+    }
+
+    String digest() {
+        return hex(sum);
+    }
+
+    /**
+     * Valid once every instance was added.
+     * @return true if the caller's digest matches the range
+     */
+    boolean unchanged() {
+        return digest != null && digest.equals(digest());
+    }
+
+    /**
+     * Valid once every instance was added.
+     * @return true if every instance of the range is sent, so the caller can
+     * replace what it has instead of merging
+     */
+    boolean complete() {
+        return digest != null ? !unchanged() : matched == 0;
+    }
+
+    /**
+     * Valid once every instance was added.
+     * @return the keys of the caller's instances that are no longer in the range
+     */
+    Iterable<String> removed() {
+        return hashes.keySet();
+    }
+
+    private static boolean valid(String key) {
+        int separator = key.lastIndexOf(':');
+        if (separator <= 0) {
+            return false;
+        }
+        try {
+            Long.parseLong(key.substring(separator + 1));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    static String eventId(String key) {
+        return key.substring(0, key.lastIndexOf(':'));
+    }
+
+    static long begin(String key) {
+        return Long.parseLong(key.substring(key.lastIndexOf(':') + 1));
+    }
+}
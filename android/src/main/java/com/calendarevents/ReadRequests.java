@@ -0,0 +1,84 @@
+package com.calendarevents;
+
+import android.os.CancellationSignal;
+
+import java.util.HashMap;
+
+/**
+ * The cancellation signals of reads that were given a `requestId`.
+ *
+ * A signal is registered when the read is queued, so a read cancelled while
+ * it waits never starts, and is made current on the thread that runs it.
+ * Provider queries take the current signal and serialization checks it
+ * between events, both give up with an OperationCanceledException.
+ */
+final class ReadRequests {
+
+    private final HashMap<String, CancellationSignal> signals = new HashMap<>();
+    private final ThreadLocal<CancellationSignal> current = new ThreadLocal<>();
+
+    /**
+     * @return the read's signal, or null if it has no request ID
+     */
+    synchronized CancellationSignal register(String requestId) {
+        if (requestId == null) {
+            return null;
+        }
+        CancellationSignal signal = new CancellationSignal();
+        signals.put(requestId, signal);
+        return signal;
+    }
+
+    synchronized void unregister(String requestId, CancellationSignal signal) {
+        // a newer read may have reused the ID
+        if (requestId != null && signals.get(requestId) == signal) {
+            signals.remove(requestId);
+        }
+    }
+
+    /**
+     * @return false if no read with that ID is queued or running
+     */
+    boolean cancel(String requestId) {
+        CancellationSignal signal;
+        synchronized (this) {
+            signal = signals.get(requestId);
+        }
+        if (signal == null) {
+            return false;
+        }
+        // runs the provider's cancellation callback, not under our lock
+        signal.cancel();
+        return true;
+    }
+
+    /**
+     * Runs a read with its signal as the current one.
+     */
+    void run(CancellationSignal signal, Runnable task) {
+        CancellationSignal outer = current.get();
+        current.set(signal);
+        try {
+            if (signal != null) {
+                signal.throwIfCanceled();
+            }
+            task.run();
+        } finally {
+            current.set(outer);
+        }
+    }
+
+    /**
+     * @return the signal of the read running on this thread, or null
+     */
+    CancellationSignal current() {
+        return current.get();
+    }
+
+    void throwIfCanceled() {
+        CancellationSignal signal = current.get();
+        if (signal != null) {
+            signal.throwIfCanceled();
+        }
+    }
+}
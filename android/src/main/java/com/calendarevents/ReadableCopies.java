@@ -0,0 +1,23 @@
+package com.calendarevents;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+
+/**
+ * Native maps are consumed when they are pushed into another map or array, so
+ * anything that is handed out more than once has to be copied first.
+ */
+final class ReadableCopies {
+
+    private ReadableCopies() {
+    }
+
+    static WritableNativeMap copy(ReadableMap source) {
+        if (source == null) {
+            return null;
+        }
+        WritableNativeMap target = new WritableNativeMap();
+        target.merge(source);
+        return target;
+    }
+}
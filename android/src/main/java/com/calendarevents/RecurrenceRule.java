@@ -0,0 +1,240 @@
+package com.calendarevents;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * An RFC 5545 RRULE, limited to the parts this module reads and writes:
+ * FREQ, INTERVAL, UNTIL, COUNT, BYDAY, BYSETPOS and WKST.
+ *
+ * Parsing is a single pass that accepts the parts in any order. Rules are
+ * immutable and interned by their raw string, since the instances of a
+ * series, and often whole calendars, share the same few rules.
+ */
+final class RecurrenceRule {
+
+    static final long NO_UNTIL = Long.MIN_VALUE;
+
+    private static final int MAX_INTERNED = 64;
+    private static final String[] NO_DAYS = new String[0];
+    private static final String[] FREQUENCIES = new String[]{"secondly", "minutely", "hourly", "daily", "weekly", "monthly", "yearly"};
+
+    private static final LinkedHashMap<String, RecurrenceRule> INTERNED = new LinkedHashMap<String, RecurrenceRule>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RecurrenceRule> eldest) {
+            return size() > MAX_INTERNED;
+        }
+    };
+
+    /** Lower case, e.g. `weekly`, or null if the rule has no FREQ. */
+    final String frequency;
+    /** 0 when not set. */
+    final int interval;
+    /** 0 when not set. */
+    final int count;
+    final long until;
+    /** BYDAY entries as written, e.g. `MO` or `-1FR`. */
+    final String[] days;
+    /** 0 when not set. */
+    final int setPosition;
+    final String weekStart;
+
+    RecurrenceRule(String frequency, int interval, int count, long until, String[] days, int setPosition, String weekStart) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.days = days != null ? days : NO_DAYS;
+        this.setPosition = setPosition;
+        this.weekStart = weekStart;
+    }
+
+    static RecurrenceRule parse(String rrule) {
+        synchronized (INTERNED) {
+            RecurrenceRule rule = INTERNED.get(rrule);
+            if (rule != null) {
+                return rule;
+            }
+        }
+
+        RecurrenceRule rule = parseUncached(rrule);
+        synchronized (INTERNED) {
+            INTERNED.put(rrule, rule);
+        }
+        return rule;
+    }
+
+    private static RecurrenceRule parseUncached(String rrule) {
+        String frequency = null;
+        int interval = 0;
+        int count = 0;
+        long until = NO_UNTIL;
+        String[] days = null;
+        int setPosition = 0;
+        String weekStart = null;
+
+        int length = rrule.length();
+        int from = rrule.regionMatches(true, 0, "RRULE:", 0, 6) ? 6 : 0;
+        while (from < length) {
+            int to = rrule.indexOf(';', from);
+            if (to == -1) {
+                to = length;
+            }
+            int equals = rrule.indexOf('=', from);
+
+            if (equals != -1 && equals < to) {
+                String value = rrule.substring(equals + 1, to);
+                int nameLength = equals - from;
+
+                if (is(rrule, from, nameLength, "FREQ")) {
+                    frequency = frequency(value);
+                } else if (is(rrule, from, nameLength, "INTERVAL")) {
+                    interval = number(value);
+                } else if (is(rrule, from, nameLength, "COUNT")) {
+                    count = number(value);
+                } else if (is(rrule, from, nameLength, "UNTIL")) {
+                    until = until(value);
+                } else if (is(rrule, from, nameLength, "BYDAY")) {
+                    days = value.toUpperCase(Locale.US).split(",");
+                } else if (is(rrule, from, nameLength, "BYSETPOS")) {
+                    setPosition = number(value);
+                } else if (is(rrule, from, nameLength, "WKST")) {
+                    weekStart = value.toUpperCase(Locale.US);
+                }
+            }
+
+            from = to + 1;
+        }
+
+        return new RecurrenceRule(frequency, interval, count, until, days, setPosition, weekStart);
+    }
+
+    /**
+     * Writes the parts in the order this module always wrote them. BYDAY is
+     * only written for weekly rules, and for monthly ones with a BYSETPOS.
+     */
+    @Override
+    public String toString() {
+        StringBuilder rrule = new StringBuilder("FREQ=").append(frequency.toUpperCase(Locale.US));
+
+        if (days.length > 0 && frequency.equals("weekly")) {
+            appendDays(rrule);
+        }
+
+        if (frequency.equals("monthly") && days.length > 0 && setPosition != 0) {
+            rrule.append(";BYSETPOS=").append(setPosition);
+            appendDays(rrule);
+        }
+
+        if (weekStart != null) {
+            rrule.append(";WKST=").append(weekStart);
+        }
+
+        if (interval != 0) {
+            rrule.append(";INTERVAL=").append(interval);
+        }
+
+        if (until != NO_UNTIL) {
+            rrule.append(";UNTIL=").append(formatUntil(until));
+        } else if (count != 0) {
+            rrule.append(";COUNT=").append(count);
+        }
+
+        return rrule.toString();
+    }
+
+    /**
+     * @return the lower case frequency if it is one RFC 5545 defines, null otherwise
+     */
+    static String frequency(String value) {
+        for (String frequency : FREQUENCIES) {
+            if (frequency.equalsIgnoreCase(value)) {
+                return frequency;
+            }
+        }
+        return null;
+    }
+
+    private void appendDays(StringBuilder rrule) {
+        rrule.append(";BYDAY=");
+        for (int i = 0; i < days.length; i++) {
+            if (i > 0) {
+                rrule.append(',');
+            }
+            rrule.append(days[i]);
+        }
+    }
+
+    private static boolean is(String rrule, int from, int length, String name) {
+        return length == name.length() && rrule.regionMatches(true, from, name, 0, length);
+    }
+
+    private static int number(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * UNTIL is either a UTC date-time (yyyyMMdd'T'HHmmss'Z'), a floating
+     * date-time in local time, or a date, which is taken as UTC midnight like
+     * the all-day events it belongs to.
+     */
+    private static long until(String value) {
+        int length = value.length();
+        if (length != 8 && length != 15 && length != 16) {
+            return NO_UNTIL;
+        }
+
+        int year = digits(value, 0, 4);
+        int month = digits(value, 4, 2);
+        int day = digits(value, 6, 2);
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+
+        if (length > 8) {
+            if (value.charAt(8) != 'T' || (length == 16 && value.charAt(15) != 'Z')) {
+                return NO_UNTIL;
+            }
+            hour = digits(value, 9, 2);
+            minute = digits(value, 11, 2);
+            second = digits(value, 13, 2);
+        }
+
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return NO_UNTIL;
+        }
+
+        long millis = Iso8601.utc(year, month, day, hour, minute, second, 0);
+        if (length == 15) {
+            millis -= TimeZone.getDefault().getOffset(millis);
+        }
+        return millis;
+    }
+
+    static String formatUntil(long millis) {
+        // yyyy-MM-ddTHH:mm:ss.SSSZ to yyyyMMddTHHmmssZ
+        String iso = Iso8601.format(millis);
+        return new StringBuilder(16)
+                .append(iso, 0, 4).append(iso, 5, 7).append(iso, 8, 13)
+                .append(iso, 14, 16).append(iso, 17, 19).append('Z')
+                .toString();
+    }
+
+    private static int digits(String value, int from, int length) {
+        int result = 0;
+        for (int i = from; i < from + length; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,486 @@
+package com.calendarevents;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.provider.CalendarContract;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A full-text index of event titles, descriptions, locations and attendee
+ * names and emails, kept in a module-owned FTS4 database next to the app's
+ * other databases.
+ *
+ * A search first brings the index up to date cheaply: it reindexes the events
+ * written through the module since the last search, and the events whose
+ * {@link ProviderSnapshot#marks} changed, which covers events added, removed,
+ * moved or edited by another app or a sync. Changes the marks miss, like a
+ * sync adapter changing an event's attendees, are found by a reconciliation
+ * against a full {@link ProviderSnapshot}, which runs in the background after
+ * the first search and after every provider change, never on the search
+ * path. The very first search after an install indexes every event. Matches
+ * are ranked in Java from FTS4's matchinfo, as FTS4 has no ranking of its own.
+ */
+final class SearchIndex {
+
+    static final String DATABASE = "calendar_events_search.db";
+    private static final int VERSION = 2;
+    // title, description, location, attendees: a title match counts four times an attendee match
+    private static final double[] WEIGHTS = new double[]{4, 1, 2, 1};
+
+    static final class Match {
+        final String eventId;
+        final double score;
+
+        Match(String eventId, double score) {
+            this.eventId = eventId;
+            this.score = score;
+        }
+    }
+
+    interface Host extends ProviderQuery {
+
+        /**
+         * Runs a reconciliation off the search path.
+         */
+        void schedule(Runnable reconcile);
+    }
+
+    private static final class Helper extends SQLiteOpenHelper {
+
+        Helper(Context context) {
+            super(context, DATABASE, null, VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            // the docid of both tables is the event ID; hash is the snapshot hash, mark the marks hash
+            db.execSQL("CREATE VIRTUAL TABLE documents USING fts4(title, description, location, attendees)");
+            db.execSQL("CREATE TABLE events (docid INTEGER PRIMARY KEY, calendar_id TEXT, first INTEGER, last INTEGER, hash INTEGER, mark INTEGER)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS documents");
+            db.execSQL("DROP TABLE IF EXISTS events");
+            onCreate(db);
+        }
+    }
+
+    private static final Comparator<Match> BY_SCORE = new Comparator<Match>() {
+        @Override
+        public int compare(Match a, Match b) {
+            return Double.compare(b.score, a.score);
+        }
+    };
+
+    private final ContentResolver resolver;
+    private final Host host;
+    private final Helper helper;
+    private final ContentObserver observer = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange) {
+            markStale();
+            if (searched) {
+                scheduleReconcile();
+            }
+        }
+    };
+    private final Runnable reconcile = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                // the next change or process start tries again
+                Log.w("CalendarEvents", "Could not reconcile the search index", e);
+            }
+        }
+    };
+
+    // counts the changes; the index is up to date with the count it was refreshed at
+    private final AtomicInteger changes = new AtomicInteger();
+    private final AtomicBoolean reconcilePending = new AtomicBoolean();
+    // the events written through the module since the last refresh, guarded by itself
+    private final HashSet<String> written = new HashSet<>();
+    private int refreshedAt = -1;
+    private volatile boolean searched;
+    private boolean registered;
+    private boolean closed;
+
+    SearchIndex(Context context, Host host) {
+        this.resolver = context.getContentResolver();
+        this.host = host;
+        this.helper = new Helper(context);
+    }
+
+    /**
+     * @param calendarIDs the calendars to search, every calendar when empty
+     * @return the events matching every word of the query, as a prefix,
+     * whose span overlaps the range, best match first
+     */
+    synchronized List<Match> search(String query, long start, long end, List<String> calendarIDs, int limit) {
+        String match = matchExpression(query);
+        if (match == null) {
+            return Collections.emptyList();
+        }
+
+        observe();
+        // without an observer every search has to look
+        int seen = changes.get();
+        if (seen != refreshedAt || !registered) {
+            refresh();
+            refreshedAt = seen;
+        }
+        if (!searched) {
+            // changes made while the app was not running
+            searched = true;
+            scheduleReconcile();
+        }
+
+        Selection selection = new Selection()
+                .match("documents", match)
+                .atMost("events.first", end)
+                .atLeast("events.last", start);
+        if (!calendarIDs.isEmpty()) {
+            // the calendar list is short, it does not need chunking
+            selection.in("events.calendar_id", calendarIDs.toArray(new String[calendarIDs.size()]));
+        }
+        ArrayList<Match> matches = new ArrayList<>();
+        Cursor cursor = helper.getReadableDatabase().rawQuery(
+                "SELECT documents.docid, matchinfo(documents, 'pcnx') FROM documents"
+                        + " JOIN events ON events.docid = documents.docid WHERE " + selection.sql(),
+                selection.args());
+        try {
+            while (cursor.moveToNext()) {
+                matches.add(new Match(cursor.getString(0), score(cursor.getBlob(1))));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        Collections.sort(matches, BY_SCORE);
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    void markStale() {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Reindexes the events a write through the module changed on the next
+     * search. Events it added are found by their marks.
+     * @param eventIDs null if the write changed calendars
+     */
+    void changed(Collection<String> eventIDs) {
+        if (eventIDs != null) {
+            synchronized (written) {
+                written.addAll(eventIDs);
+            }
+        }
+        markStale();
+    }
+
+    synchronized void close() {
+        closed = true;
+        if (registered) {
+            resolver.unregisterContentObserver(observer);
+            registered = false;
+        }
+        helper.close();
+    }
+
+    private void observe() {
+        if (!registered) {
+            try {
+                resolver.registerContentObserver(CalendarContract.CONTENT_URI, true, observer);
+                registered = true;
+            } catch (SecurityException e) {
+                // refreshed on every search instead
+                Log.d("CalendarEvents", "Cannot observe the calendar provider", e);
+            }
+        }
+    }
+
+    /**
+     * Reindexes the events written through the module and the events whose
+     * marks differ from the stored ones. The written events are only
+     * forgotten once the reindex is committed.
+     */
+    private void refresh() {
+        ArrayList<String> writes;
+        synchronized (written) {
+            writes = new ArrayList<>(written);
+        }
+
+        HashMap<String, ProviderSnapshot.EventState> marks = ProviderSnapshot.marks(host, null);
+        SQLiteDatabase db = helper.getWritableDatabase();
+
+        HashMap<String, Long> indexed = new HashMap<>();
+        Cursor cursor = db.rawQuery("SELECT docid, mark FROM events", null);
+        try {
+            while (cursor.moveToNext()) {
+                indexed.put(cursor.getString(0), cursor.getLong(1));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        // what is left in indexed afterwards was deleted from the provider
+        HashSet<String> changed = new HashSet<>(writes);
+        for (Map.Entry<String, ProviderSnapshot.EventState> entry : marks.entrySet()) {
+            Long mark = indexed.remove(entry.getKey());
+            if (mark == null || mark != entry.getValue().hash) {
+                changed.add(entry.getKey());
+            }
+        }
+        changed.addAll(indexed.keySet());
+
+        if (!changed.isEmpty()) {
+            reindex(db, changed, marks);
+        }
+        synchronized (written) {
+            written.removeAll(writes);
+        }
+    }
+
+    private void scheduleReconcile() {
+        if (reconcilePending.compareAndSet(false, true)) {
+            host.schedule(reconcile);
+        }
+    }
+
+    /**
+     * Reindexes the events whose snapshot hash differs from the stored one.
+     * The snapshot is taken outside the lock, searches keep running on the
+     * index meanwhile.
+     */
+    private void reconcile() {
+        // cleared first, a change that lands while we read schedules another one
+        reconcilePending.set(false);
+        HashMap<String, ProviderSnapshot.EventState> events = ProviderSnapshot.events(host, null);
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            SQLiteDatabase db = helper.getWritableDatabase();
+            HashMap<String, Long> indexed = new HashMap<>();
+            Cursor cursor = db.rawQuery("SELECT docid, hash FROM events", null);
+            try {
+                while (cursor.moveToNext()) {
+                    indexed.put(cursor.getString(0), cursor.getLong(1));
+                }
+            } finally {
+                cursor.close();
+            }
+
+            HashSet<String> changed = new HashSet<>();
+            for (Map.Entry<String, ProviderSnapshot.EventState> entry : events.entrySet()) {
+                Long hash = indexed.remove(entry.getKey());
+                if (hash == null || hash != entry.getValue().hash) {
+                    changed.add(entry.getKey());
+                }
+            }
+            changed.addAll(indexed.keySet());
+
+            if (!changed.isEmpty()) {
+                reindex(db, changed, ProviderSnapshot.marks(host, null));
+            }
+        }
+    }
+
+    /**
+     * Reads the events again and replaces what the index holds for them in
+     * one transaction. Events that are gone from the provider are dropped.
+     * @param marks the current marks, at least of {@code eventIDs}
+     */
+    private void reindex(SQLiteDatabase db, Collection<String> eventIDs, HashMap<String, ProviderSnapshot.EventState> marks) {
+        HashMap<String, ProviderSnapshot.EventState> states = ProviderSnapshot.events(host, eventIDs);
+
+        db.beginTransaction();
+        try {
+            SQLiteStatement deleteDocument = db.compileStatement("DELETE FROM documents WHERE docid = ?");
+            SQLiteStatement deleteEvent = db.compileStatement("DELETE FROM events WHERE docid = ?");
+            for (String eventID : eventIDs) {
+                delete(deleteDocument, eventID);
+                if (!states.containsKey(eventID)) {
+                    delete(deleteEvent, eventID);
+                }
+            }
+            deleteDocument.close();
+            deleteEvent.close();
+
+            SQLiteStatement insertDocument = db.compileStatement(
+                    "INSERT INTO documents (docid, title, description, location, attendees) VALUES (?, ?, ?, ?, ?)");
+            for (String[] chunk : Selection.chunk(states.keySet())) {
+                insertDocuments(insertDocument, chunk);
+            }
+            insertDocument.close();
+
+            SQLiteStatement insertEvent = db.compileStatement(
+                    "INSERT OR REPLACE INTO events (docid, calendar_id, first, last, hash, mark) VALUES (?, ?, ?, ?, ?, ?)");
+            for (Map.Entry<String, ProviderSnapshot.EventState> entry : states.entrySet()) {
+                ProviderSnapshot.EventState state = entry.getValue();
+                ProviderSnapshot.EventState mark = marks.get(entry.getKey());
+                insertEvent.bindLong(1, Long.parseLong(entry.getKey()));
+                bindString(insertEvent, 2, state.calendarId);
+                insertEvent.bindLong(3, state.first);
+                insertEvent.bindLong(4, state.last);
+                insertEvent.bindLong(5, state.hash);
+                // an event added since the marks were read is checked again next time
+                if (mark != null) {
+                    insertEvent.bindLong(6, mark.hash);
+                } else {
+                    insertEvent.bindNull(6);
+                }
+                insertEvent.executeInsert();
+            }
+            insertEvent.close();
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deleted events keep their hash in `events` but get no document, so they
+     * are not read again until they change.
+     */
+    private void insertDocuments(SQLiteStatement insert, String[] eventIDs) {
+        HashMap<String, StringBuilder> attendees = new HashMap<>();
+        Selection selection = new Selection().in(CalendarContract.Attendees.EVENT_ID, eventIDs);
+        Cursor cursor = host.query(CalendarContract.Attendees.CONTENT_URI, new String[]{
+                CalendarContract.Attendees.EVENT_ID,
+                CalendarContract.Attendees.ATTENDEE_NAME,
+                CalendarContract.Attendees.ATTENDEE_EMAIL
+        }, selection.sql(), selection.args(), null);
+        if (cursor != null) {
+            try {
+                while (cursor.moveToNext()) {
+                    StringBuilder text = attendees.get(cursor.getString(0));
+                    if (text == null) {
+                        text = new StringBuilder();
+                        attendees.put(cursor.getString(0), text);
+                    }
+                    for (int i = 1; i <= 2; i++) {
+                        if (!cursor.isNull(i)) {
+                            text.append(cursor.getString(i)).append(' ');
+                        }
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        selection = new Selection()
+                .where(CalendarContract.Events.DELETED + " != 1")
+                .in(CalendarContract.Events._ID, eventIDs);
+        cursor = host.query(CalendarContract.Events.CONTENT_URI, new String[]{
+                CalendarContract.Events._ID,
+                CalendarContract.Events.TITLE,
+                CalendarContract.Events.DESCRIPTION,
+                CalendarContract.Events.EVENT_LOCATION
+        }, selection.sql(), selection.args(), null);
+        if (cursor == null) {
+            return;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                StringBuilder text = attendees.get(cursor.getString(0));
+                insert.bindLong(1, cursor.getLong(0));
+                bindString(insert, 2, cursor.getString(1));
+                bindString(insert, 3, cursor.getString(2));
+                bindString(insert, 4, cursor.getString(3));
+                bindString(insert, 5, text != null ? text.toString() : null);
+                insert.executeInsert();
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void delete(SQLiteStatement delete, String eventID) {
+        delete.bindLong(1, Long.parseLong(eventID));
+        delete.executeUpdateDelete();
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * Turns free text into an FTS query that matches every word as a prefix.
+     * Only letters and digits are kept, so the text cannot use FTS syntax,
+     * and words are lower-cased so none of them is read as an operator.
+     * @return null if the text has no words
+     */
+    static String matchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= query.length(); i++) {
+            char c = i < query.length() ? query.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(word).append('*');
+                word.setLength(0);
+            }
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    /**
+     * A BM25-like score from matchinfo 'pcnx': per phrase and column the hits
+     * in this row, saturated, times how rare the phrase is in that column,
+     * times the column's weight.
+     */
+    static double score(byte[] matchinfo) {
+        ByteBuffer info = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = info.getInt(0);
+        int columns = info.getInt(4);
+        long rows = info.getInt(8) & 0xffffffffL;
+
+        double score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int c = 0; c < columns; c++) {
+                int offset = 12 + 12 * (p * columns + c);
+                long hits = info.getInt(offset) & 0xffffffffL;
+                if (hits == 0) {
+                    continue;
+                }
+                long documents = info.getInt(offset + 8) & 0xffffffffL;
+                double idf = Math.log(1 + (rows - documents + 0.5) / (documents + 0.5));
+                double weight = c < WEIGHTS.length ? WEIGHTS[c] : 1;
+                score += weight * idf * hits / (hits + 1.2);
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,121 @@
+package com.calendarevents;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A provider selection whose values are bound as selection arguments
+ * instead of being written into the SQL, so statements that only differ in
+ * their values share one compiled statement and no value is ever parsed as
+ * SQL. Conditions are joined with AND.
+ *
+ * <pre>
+ * Selection selection = new Selection()
+ *         .where(Instances.VISIBLE + " = 1")
+ *         .in(Instances.CALENDAR_ID, calendarIds);
+ * resolver.query(uri, projection, selection.sql(), selection.args(), null);
+ * </pre>
+ */
+final class Selection {
+
+    // stays well below SQLite's default limit of 999 bound parameters per statement
+    static final int MAX_ARGS = 500;
+
+    private final StringBuilder where = new StringBuilder();
+    private final ArrayList<String> args = new ArrayList<>();
+
+    /**
+     * Adds a condition without values, like a comparison with a constant.
+     */
+    Selection where(String condition) {
+        return append(condition);
+    }
+
+    /**
+     * Adds a condition with a {@code ?} for each of the values, in order.
+     */
+    Selection where(String condition, long... values) {
+        for (long value : values) {
+            args.add(Long.toString(value));
+        }
+        return append(condition);
+    }
+
+    Selection equal(String column, String value) {
+        args.add(value);
+        return append(column + " = ?");
+    }
+
+    Selection atLeast(String column, long value) {
+        args.add(Long.toString(value));
+        return append(column + " >= ?");
+    }
+
+    Selection atMost(String column, long value) {
+        args.add(Long.toString(value));
+        return append(column + " <= ?");
+    }
+
+    /**
+     * Adds a full-text {@code table MATCH ?}, for the search index.
+     */
+    Selection match(String table, String query) {
+        args.add(query);
+        return append(table + " MATCH ?");
+    }
+
+    /**
+     * Adds {@code column IN (?,...)}. Lists longer than {@link #MAX_ARGS}
+     * should be split with {@link #chunk} and queried once per chunk.
+     */
+    Selection in(String column, String[] values) {
+        for (String value : values) {
+            args.add(value);
+        }
+        StringBuilder condition = new StringBuilder(column.length() + 6 + values.length * 2);
+        condition.append(column).append(" IN (");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                condition.append(',');
+            }
+            condition.append('?');
+        }
+        return append(condition.append(')'));
+    }
+
+    /**
+     * @return the arguments, or null if the selection has none
+     */
+    String[] args() {
+        return args.isEmpty() ? null : args.toArray(new String[args.size()]);
+    }
+
+    /**
+     * @return the selection, or null if it has no conditions
+     */
+    String sql() {
+        return where.length() == 0 ? null : where.toString();
+    }
+
+    /**
+     * Splits values into lists of at most {@link #MAX_ARGS}, in order.
+     */
+    static List<String[]> chunk(Collection<String> values) {
+        ArrayList<String> list = new ArrayList<>(values);
+        ArrayList<String[]> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += MAX_ARGS) {
+            int to = Math.min(from + MAX_ARGS, list.size());
+            chunks.add(list.subList(from, to).toArray(new String[to - from]));
+        }
+        return chunks;
+    }
+
+    private Selection append(CharSequence condition) {
+        if (where.length() > 0) {
+            where.append(" AND ");
+        }
+        where.append('(').append(condition).append(')');
+        return this;
+    }
+}
@@ -0,0 +1,98 @@
+package com.calendarevents;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableNativeArray;
+import com.facebook.react.bridge.ReadableNativeMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets concurrent reads with equal arguments share one query: the first
+ * caller runs it, callers that arrive with the same key while it runs only
+ * wait for its result.
+ *
+ * Native maps and arrays are consumed when they are resolved, so the first
+ * waiter gets the result itself and every other waiter a copy made from
+ * one plain Java conversion of it. A read nobody joined costs nothing extra.
+ */
+final class SingleFlight {
+
+    interface Read {
+        Object run();
+    }
+
+    private final HashMap<String, ArrayList<Promise>> flights = new HashMap<>();
+
+    /**
+     * @return true if the caller should run the read and then call
+     * {@link #resolve} or {@link #reject} with the same key, false if it
+     * joined a read that is already running
+     */
+    synchronized boolean join(String key, Promise promise) {
+        ArrayList<Promise> waiters = flights.get(key);
+        if (waiters != null) {
+            waiters.add(promise);
+            return false;
+        }
+        waiters = new ArrayList<>();
+        waiters.add(promise);
+        flights.put(key, waiters);
+        return true;
+    }
+
+    void resolve(String key, Object result) {
+        ArrayList<Promise> waiters = finish(key);
+        if (waiters == null) {
+            // already settled
+            return;
+        }
+
+        Object plain = waiters.size() > 1 ? toJava(result) : null;
+        waiters.get(0).resolve(result);
+        for (int i = 1; i < waiters.size(); i++) {
+            waiters.get(i).resolve(fromJava(plain, result));
+        }
+    }
+
+    void reject(String key, String code, String message) {
+        ArrayList<Promise> waiters = finish(key);
+        if (waiters == null) {
+            // already settled, the read failed after resolving
+            return;
+        }
+        for (Promise waiter : waiters) {
+            waiter.reject(code, message);
+        }
+    }
+
+    private synchronized ArrayList<Promise> finish(String key) {
+        return flights.remove(key);
+    }
+
+    private static Object toJava(Object result) {
+        if (result instanceof ReadableNativeArray) {
+            return ((ReadableNativeArray) result).toArrayList();
+        }
+        if (result instanceof ReadableNativeMap) {
+            return ((ReadableNativeMap) result).toHashMap();
+        }
+        // strings, booleans and null are not consumed
+        return result;
+    }
+
+    // fromList cannot hold maps, makeNativeArray and makeNativeMap copy nested maps and arrays
+    @SuppressWarnings("unchecked")
+    private static Object fromJava(Object plain, Object result) {
+        if (result instanceof ReadableNativeArray) {
+            return Arguments.makeNativeArray((List<Object>) plain);
+        }
+        if (result instanceof ReadableNativeMap) {
+            return Arguments.makeNativeMap((Map<String, Object>) plain);
+        }
+        return plain;
+    }
+}
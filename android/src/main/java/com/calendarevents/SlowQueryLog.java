@@ -0,0 +1,151 @@
+package com.calendarevents;
+
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * The most recent method calls that took longer than a threshold, with the
+ * provider queries they ran and where their time went. Off until a
+ * threshold is set, so calls only collect query details while it is on.
+ */
+final class SlowQueryLog {
+
+    static final int CAPACITY = 50;
+    // per call, a slow call that runs more queries than this keeps the first ones
+    static final int MAX_QUERIES = 32;
+
+    static final class Query {
+        final String uri;
+        final String[] projection;
+        final String selection;
+        final String[] selectionArgs;
+        final int rows;
+        final long micros;
+
+        Query(String uri, String[] projection, String selection, String[] selectionArgs, int rows, long micros) {
+            this.uri = uri;
+            this.projection = projection;
+            this.selection = selection;
+            this.selectionArgs = selectionArgs;
+            this.rows = rows;
+            this.micros = micros;
+        }
+    }
+
+    private static final class Record {
+        final String method;
+        final long endedAt;
+        final long micros;
+        final long[] stageMicros;
+        final ArrayList<Query> queries;
+        final long queryCount;
+        final long rows;
+        final long bytes;
+        final boolean failed;
+
+        Record(CalendarMetrics.Call call, long micros, long[] stageMicros) {
+            this.method = call.method;
+            this.endedAt = System.currentTimeMillis();
+            this.micros = micros;
+            this.stageMicros = stageMicros;
+            this.queries = call.queryLog;
+            this.queryCount = call.queries;
+            this.rows = call.rows;
+            this.bytes = call.bytes;
+            this.failed = call.failed;
+        }
+    }
+
+    private final ArrayDeque<Record> records = new ArrayDeque<>();
+    // disabled while negative
+    private volatile long thresholdMicros = -1;
+
+    boolean enabled() {
+        return thresholdMicros >= 0;
+    }
+
+    /**
+     * @param millis the shortest call to record, or a negative value to stop recording
+     */
+    void setThreshold(double millis) {
+        thresholdMicros = millis < 0 ? -1 : (long) (millis * 1000);
+    }
+
+    void offer(CalendarMetrics.Call call, long micros, long[] stageMicros) {
+        long threshold = thresholdMicros;
+        if (threshold < 0 || micros < threshold) {
+            return;
+        }
+        Record record = new Record(call, micros, stageMicros);
+        synchronized (records) {
+            if (records.size() == CAPACITY) {
+                records.removeFirst();
+            }
+            records.addLast(record);
+        }
+    }
+
+    /**
+     * @return the records, oldest first
+     */
+    WritableNativeArray dump() {
+        ArrayList<Record> copy;
+        synchronized (records) {
+            copy = new ArrayList<>(records);
+        }
+
+        WritableNativeArray results = new WritableNativeArray();
+        for (Record record : copy) {
+            WritableNativeMap stages = new WritableNativeMap();
+            for (int i = 0; i < CalendarMetrics.STAGES.length; i++) {
+                stages.putDouble(CalendarMetrics.STAGES[i] + "Ms", record.stageMicros[i] / 1000.0);
+            }
+
+            WritableNativeArray queries = new WritableNativeArray();
+            if (record.queries != null) {
+                for (Query query : record.queries) {
+                    WritableNativeMap map = new WritableNativeMap();
+                    map.putString("uri", query.uri);
+                    map.putArray("projection", strings(query.projection));
+                    map.putString("selection", query.selection);
+                    map.putArray("selectionArgs", strings(query.selectionArgs));
+                    map.putInt("rows", query.rows);
+                    map.putDouble("ms", query.micros / 1000.0);
+                    queries.pushMap(map);
+                }
+            }
+
+            WritableNativeMap result = new WritableNativeMap();
+            result.putString("method", record.method);
+            result.putDouble("endedAt", record.endedAt);
+            result.putDouble("ms", record.micros / 1000.0);
+            result.putMap("stages", stages);
+            result.putArray("queries", queries);
+            result.putDouble("queryCount", record.queryCount);
+            result.putDouble("rows", record.rows);
+            result.putDouble("bytes", record.bytes);
+            result.putBoolean("failed", record.failed);
+            results.pushMap(result);
+        }
+        return results;
+    }
+
+    void clear() {
+        synchronized (records) {
+            records.clear();
+        }
+    }
+
+    private static WritableNativeArray strings(String[] values) {
+        WritableNativeArray array = new WritableNativeArray();
+        if (values != null) {
+            for (String value : values) {
+                array.pushString(value);
+            }
+        }
+        return array;
+    }
+}
@@ -1,8 +1,131 @@
 'use strict'
 
-import { NativeModules, processColor } from 'react-native'
+import { NativeModules, DeviceEventEmitter, processColor } from 'react-native'
 
 var CalendarEvents = NativeModules.CalendarEvents
+var streamCount = 0
+var subscriptionCount = 0
+
+var BASE64 = 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/'
+var BASE64_VALUES = new Uint8Array(128)
+for (var i = 0; i < BASE64.length; i++) {
+  BASE64_VALUES[BASE64.charCodeAt(i)] = i
+}
+
+function base64ToArrayBuffer (base64) {
+  var padding = base64.endsWith('==') ? 2 : base64.endsWith('=') ? 1 : 0
+  var bytes = new Uint8Array(base64.length / 4 * 3 - padding)
+  var j = 0
+  for (var i = 0; i < base64.length; i += 4) {
+    var n = BASE64_VALUES[base64.charCodeAt(i)] << 18 |
+      BASE64_VALUES[base64.charCodeAt(i + 1)] << 12 |
+      BASE64_VALUES[base64.charCodeAt(i + 2)] << 6 |
+      BASE64_VALUES[base64.charCodeAt(i + 3)]
+    bytes[j++] = n >> 16
+    if (j < bytes.length) bytes[j++] = n >> 8 & 0xFF
+    if (j < bytes.length) bytes[j++] = n & 0xFF
+  }
+  return bytes.buffer
+}
+
+function decodeUtf8 (bytes) {
+  if (typeof TextDecoder !== 'undefined') {
+    return new TextDecoder().decode(bytes)
+  }
+  var result = ''
+  for (var i = 0; i < bytes.length;) {
+    var c = bytes[i++]
+    if (c >= 0xF0) {
+      c = (c & 0x07) << 18 | (bytes[i++] & 0x3F) << 12 | (bytes[i++] & 0x3F) << 6 | bytes[i++] & 0x3F
+    } else if (c >= 0xE0) {
+      c = (c & 0x0F) << 12 | (bytes[i++] & 0x3F) << 6 | bytes[i++] & 0x3F
+    } else if (c >= 0xC0) {
+      c = (c & 0x1F) << 6 | bytes[i++] & 0x3F
+    }
+    result += String.fromCodePoint(c)
+  }
+  return result
+}
+
+// reads the layout documented in android/.../BinaryEvents.java
+function decodeEvents (buffer) {
+  var view = new DataView(buffer)
+  var offset = 0
+
+  if (view.getUint32(0, true) !== 0x45434E52 || view.getUint16(4, true) !== 1) {
+    throw new Error('Not a version 1 binary events buffer')
+  }
+  var columnCount = view.getUint16(6, true)
+  var count = view.getUint32(8, true)
+  var strings = new Array(view.getUint32(12, true))
+  offset = 16
+
+  for (var i = 0; i < strings.length; i++) {
+    var length = view.getUint32(offset, true)
+    strings[i] = decodeUtf8(new Uint8Array(buffer, offset + 4, length))
+    offset += 4 + length
+  }
+
+  var columns = new Array(columnCount)
+  for (var c = 0; c < columnCount; c++) {
+    columns[c] = strings[view.getUint32(offset, true)]
+    offset += 4
+  }
+
+  function value () {
+    var tag = view.getUint8(offset++)
+    var size, result
+    switch (tag) {
+      case 0: return null
+      case 1: return false
+      case 2: return true
+      case 3:
+        result = view.getFloat64(offset, true)
+        offset += 8
+        return result
+      case 4:
+        result = strings[view.getUint32(offset, true)]
+        offset += 4
+        return result
+      case 5:
+        size = view.getUint32(offset, true)
+        offset += 4
+        result = new Array(size)
+        for (var i = 0; i < size; i++) {
+          result[i] = value()
+        }
+        return result
+      case 6:
+        size = view.getUint32(offset, true)
+        offset += 4
+        result = {}
+        for (var j = 0; j < size; j++) {
+          var key = strings[view.getUint32(offset, true)]
+          offset += 4
+          result[key] = value()
+        }
+        return result
+      default:
+        throw new Error('Unknown value tag ' + tag)
+    }
+  }
+
+  var calendars = value()
+  var events = new Array(count)
+  for (var e = 0; e < count; e++) {
+    var fieldCount = view.getUint16(offset, true)
+    offset += 2
+    var event = {}
+    for (var f = 0; f < fieldCount; f++) {
+      var column = columns[view.getUint16(offset, true)]
+      offset += 2
+      event[column] = value()
+    }
+    events[e] = event
+  }
+
+  return { events, calendars }
+}
 
 export default {
 
@@ -14,8 +137,73 @@ export default {
     return CalendarEvents.requestCalendarPermissions()
   },
 
-  async fetchAllEvents (startDate, endDate, calendars = []) {
-    return CalendarEvents.findAllEvents(startDate, endDate, calendars)
+  async fetchAllEvents (startDate, endDate, calendars = [], options = {}) {
+    const results = await CalendarEvents.findAllEvents(startDate, endDate, calendars, options)
+    return options.format === 'binary' ? base64ToArrayBuffer(results) : results
+  },
+
+  decodeEvents (buffer) {
+    return decodeEvents(buffer)
+  },
+
+  eventHashes (events) {
+    const hashes = {}
+    events.forEach((event) => {
+      const begin = typeof event.startDate === 'number' ? event.startDate : Date.parse(event.startDate)
+      hashes[`${event.id}:${begin}`] = event.contentHash
+    })
+    return hashes
+  },
+
+  async streamAllEvents (startDate, endDate, calendars = [], onEvents, options = {}) {
+    const streamId = `${Date.now()}-${streamCount++}`
+    const subscription = DeviceEventEmitter.addListener('CalendarEventsStream', (chunk) => {
+      if (chunk.streamId === streamId) {
+        onEvents(chunk.events, chunk.index)
+      }
+    })
+
+    try {
+      return await CalendarEvents.streamAllEvents(startDate, endDate, calendars, { ...options, streamId })
+    } finally {
+      subscription.remove()
+    }
+  },
+
+  async findConflicts (candidates, calendars = [], options = {}) {
+    return CalendarEvents.findConflicts(candidates, calendars, options)
+  },
+
+  async findFreeBusy (startDate, endDate, calendars = [], options = {}) {
+    return CalendarEvents.findFreeBusy(startDate, endDate, calendars, options)
+  },
+
+  async searchEvents (query, startDate, endDate, calendars = [], options = {}) {
+    return CalendarEvents.searchEvents(query, startDate, endDate, calendars, options)
+  },
+
+  async subscribe (startDate, endDate, calendars = [], onChange, options = {}) {
+    const subscriptionId = `${Date.now()}-${subscriptionCount++}`
+    // listening before the native call, an update may be emitted before it resolves
+    const listener = DeviceEventEmitter.addListener('CalendarEventsChange', (changes) => {
+      if (changes.subscriptionId === subscriptionId) {
+        onChange(changes)
+      }
+    })
+
+    try {
+      const events = await CalendarEvents.subscribe(startDate, endDate, calendars, { ...options, subscriptionId })
+      return {
+        events,
+        unsubscribe () {
+          listener.remove()
+          return CalendarEvents.unsubscribe(subscriptionId)
+        }
+      }
+    } catch (e) {
+      listener.remove()
+      throw e
+    }
   },
 
   async findCalendars () {
@@ -34,8 +222,16 @@ export default {
   },
 
 
-  async findEventById (id) {
-    return CalendarEvents.findById(id)
+  async findEventById (id, options = {}) {
+    return CalendarEvents.findById(id, options)
+  },
+
+  async findEventsByIds (ids, options = {}) {
+    return CalendarEvents.findByIds(ids, options)
+  },
+
+  async findEventInstanceById (instanceId, options = {}) {
+    return CalendarEvents.findInstanceById(instanceId, options)
   },
 
   async saveEvent (title, details, options = {sync: false}) {
@@ -53,6 +249,34 @@ export default {
     return CalendarEvents.removeEvents(ids, options)
   },
 
+  async cancel (requestId) {
+    return CalendarEvents.cancel(requestId)
+  },
+
+  async getCalendarCacheStats () {
+    return CalendarEvents.getCalendarCacheStats()
+  },
+
+  async getMetrics () {
+    return CalendarEvents.getMetrics()
+  },
+
+  async resetMetrics () {
+    return CalendarEvents.resetMetrics()
+  },
+
+  async setSlowQueryThreshold (ms) {
+    return CalendarEvents.setSlowQueryThreshold(ms)
+  },
+
+  async getSlowQueries () {
+    return CalendarEvents.getSlowQueries()
+  },
+
+  async clearSlowQueries () {
+    return CalendarEvents.clearSlowQueries()
+  },
+
   async uriForCalendar () {
     return CalendarEvents.uriForCalendar()
   },
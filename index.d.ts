@@ -28,6 +28,149 @@ export interface Options {
   futureEvents?: boolean;
 }
 
+export type EventField =
+  | "title"
+  | "description"
+  | "startDate"
+  | "endDate"
+  | "allDay"
+  | "location"
+  | "recurrence"
+  | "recurrenceRule"
+  | "calendar"
+  | "availability"
+  | "attendees"
+  | "alarms"
+  | "originalId"
+  | "syncId";
+
+export interface ReadOptions {
+  /** ANDROID ONLY - `high` moves the read ahead of queued reads, use it for what is on screen. */
+  priority?: "normal" | "high";
+  /** ANDROID ONLY - Lets `cancel(requestId)` stop the read. A cancelled read rejects with code `E_CANCELLED`. */
+  requestId?: string;
+  /** ANDROID ONLY - Only read these fields, `id` is always included. Defaults to every field. */
+  fields?: EventField[];
+  /** ANDROID ONLY - `epoch` sends `startDate`, `endDate`, alarm dates and the recurrence end date as epoch milliseconds instead of ISO strings. Defaults to `iso`. */
+  dateFormat?: "iso" | "epoch";
+  /** ANDROID ONLY - `fetchAllEvents` only. `columnar` resolves to parallel arrays per field instead of one object per event, see `ColumnarEvents`. `binary` resolves to an ArrayBuffer, sent as base64 over the bridge and decoded in JS, see `decodeEvents`. */
+  format?: "objects" | "columnar" | "binary";
+  /** ANDROID ONLY - `fetchAllEvents` only. Serve the range from memory when an earlier cached read covered it. */
+  cache?: boolean;
+  /** ANDROID ONLY - `fetchAllEvents` only. What the caller already holds: `eventHashes(events)` of an earlier result, or its `digest`. Resolves to `EventsSince`. */
+  since?: string | { [instanceKey: string]: string };
+}
+
+/** ANDROID ONLY - `fetchAllEvents` result with the `since` option. */
+export interface EventsSince {
+  /** The new and changed instances, each with its `contentHash`. */
+  events: CalendarEventReadable[];
+  /** Instances the caller holds that are no longer in the range. */
+  removed: Array<{ id: string; startDate: ISODateString | number }>;
+  /** Hash of the whole range, pass it as `since` to only learn whether anything changed. */
+  digest: string;
+  /** True if `events` holds every instance of the range, so it can replace what the caller has. */
+  complete: boolean;
+}
+
+export interface InstanceReadOptions extends ReadOptions {
+  /** The id of the event the instance belongs to. */
+  eventId?: string;
+  /** The start date of the instance, the fastest way to find it. */
+  instanceStart?: ISODateString | number;
+}
+
+/** ANDROID ONLY - A `fetchAllEvents` result with `format: 'binary'`, decoded. */
+export interface DecodedEvents {
+  /** Dates are epoch milliseconds and `calendar` is replaced by `calendarId`. */
+  events: Array<Omit<CalendarEventReadable, "calendar"> & { calendarId?: string }>;
+  /** Every calendar referenced by `events`, once. */
+  calendars: { [id: string]: Calendar };
+}
+
+/** ANDROID ONLY - `fetchAllEvents` result with `format: 'columnar'`. */
+export interface ColumnarEvents {
+  /** Number of events, the length of every column. */
+  count: number;
+  /** One array per requested field, index i of every array belongs to the i-th event. Dates are epoch milliseconds and `calendar` is replaced by `calendarId`. A field an event does not have is null. */
+  columns: {
+    id: string[];
+    calendarId?: string[];
+    [field: string]: any[] | undefined;
+  };
+  /** Every calendar referenced by `columns.calendarId`, once. */
+  calendars: { [id: string]: Calendar };
+}
+
+export interface SearchOptions extends ReadOptions {
+  /** Maximum number of events, 50 by default. */
+  limit?: number;
+}
+
+export interface FreeBusyOptions {
+  /** `high` moves the read ahead of queued reads. */
+  priority?: "normal" | "high";
+  /** Lets `cancel(requestId)` stop the read. */
+  requestId?: string;
+  /** The availabilities that block time. Busy events whose status is tentative count as `tentative`. Defaults to `['busy', 'tentative']`. */
+  busyAvailabilities?: Array<"busy" | "free" | "tentative">;
+  /** Leave all-day events out. Defaults to `false`. */
+  ignoreAllDay?: boolean;
+  /** Only return free slots at least this long. */
+  minFreeMinutes?: number;
+}
+
+export interface ConflictOptions {
+  priority?: "normal" | "high";
+  requestId?: string;
+  /** The availabilities that block time, as in `FreeBusyOptions`. Defaults to `['busy', 'tentative']`. */
+  busyAvailabilities?: Array<"busy" | "free" | "tentative">;
+  /** Never report all-day events. Defaults to `false`. */
+  ignoreAllDay?: boolean;
+  /** `epoch` sends the conflicts' dates as epoch milliseconds. */
+  dateFormat?: "iso" | "epoch";
+}
+
+/** ANDROID ONLY - An existing instance a candidate overlaps. */
+export interface Conflict {
+  /** The event id. */
+  id: string;
+  /** The instance id, for `findEventInstanceById`. */
+  instanceId: string;
+  startDate: ISODateString | number;
+  endDate: ISODateString | number;
+}
+
+/** ANDROID ONLY - Intervals as flat `[start, end, start, end, ...]` arrays of epoch milliseconds, in order. */
+export interface FreeBusy {
+  /** The busy instances of the range, merged where they overlap or touch, clipped to the range. */
+  busy: number[];
+  /** The rest of the range. */
+  free: number[];
+}
+
+export interface StreamOptions extends ReadOptions {
+  /** Number of events per chunk. */
+  chunkSize?: number;
+}
+
+/** ANDROID ONLY - The instances of a `subscribe` range that changed since the last update. */
+export interface EventChanges {
+  subscriptionId: string;
+  added: CalendarEventReadable[];
+  /** Instances that were already sent, with their new content. */
+  changed: CalendarEventReadable[];
+  /** Instances that left the range, identified by event id and start date. */
+  removed: Array<{ id: string; startDate: ISODateString | number }>;
+}
+
+export interface EventSubscription {
+  /** The events overlapping the range when the subscription started. */
+  events: CalendarEventReadable[];
+  /** Stops the updates. Resolves to false if the subscription had already ended. */
+  unsubscribe(): Promise<boolean>;
+}
+
 interface Alarm<D = ISODateString | number> {
   /** When saving an event, if a Date is given, an alarm will be set with an absolute date. If a Number is given, an alarm will be set with a relative offset (in minutes) from the start date. When reading an event this will always be an ISO Date string */
   date: D;
@@ -44,6 +187,12 @@ interface RecurrenceRule {
   occurrence: number;
   /** The interval between events of this recurrence. */
   interval: number;
+  /** ANDROID ONLY - RRULE BYDAY values, e.g. `MO` or `-1FR`. Written for weekly rules, and for monthly rules with `weekPositionInMonth`. */
+  daysOfWeek?: string[];
+  /** ANDROID ONLY - RRULE WKST value, e.g. `MO`. */
+  weekStart?: string;
+  /** ANDROID ONLY - RRULE BYSETPOS value of a monthly rule, e.g. `-1` for the last of `daysOfWeek` in the month. */
+  weekPositionInMonth?: number;
 }
 
 interface Attendee {
@@ -110,6 +259,8 @@ export interface CalendarEventReadable extends CalendarEventBase {
   occurrenceDate?: ISODateString;
   /** The alarms associated with the calendar event, as an array of alarm objects. */
   alarms?: Array<Alarm<ISODateString>>;
+  /** ANDROID ONLY - Hash of the instance's content, only read with the `since` option. */
+  contentHash?: string;
 }
 
 export interface CalendarEventWritable extends CalendarEventBase {
@@ -121,6 +272,85 @@ export interface CalendarEventWritable extends CalendarEventBase {
   alarms?: Array<Alarm<ISODateString | number>>;
 }
 
+export interface CalendarCacheStats {
+  /** Lookups answered from memory. */
+  hits: number;
+  /** Lookups that had to load the calendars from the provider. */
+  misses: number;
+  /** Times a provider change was checked against the cached calendars. */
+  validations: number;
+  /** Times a change to the calendars dropped the cached ones. */
+  invalidations: number;
+  /** Calendars currently cached. */
+  size: number;
+}
+
+/** ANDROID ONLY - Counters of one native method, see `getMetrics`. */
+export interface MethodMetrics {
+  calls: number;
+  /** Calls that threw or were rejected while running. */
+  errors: number;
+  /** Time from the call being queued to its end, summed over all calls. */
+  totalMs: number;
+  maxMs: number;
+  /** Percentiles are the upper bound of the histogram bucket they fall in. */
+  p50Ms: number;
+  p95Ms: number;
+  p99Ms: number;
+  /** Calendar provider queries. */
+  queries: number;
+  /** Rows the provider queries returned. */
+  rows: number;
+  /** Estimated size of the results sent to JS. Nested attendees, alarms and recurrence rules are not counted. */
+  bytes: number;
+  /** Bucket i counts the calls that took less than 2^i microseconds, the last bucket every slower call. */
+  histogram: number[];
+}
+
+/** ANDROID ONLY - Result of `getMetrics`. */
+export interface CalendarMetrics {
+  /** When counting started, in epoch milliseconds. */
+  since: number;
+  /** Keyed by native method, e.g. `findAllEvents`. */
+  methods: { [method: string]: MethodMetrics };
+}
+
+/** ANDROID ONLY - A call recorded by the slow query log, see `setSlowQueryThreshold`. */
+export interface SlowQuery {
+  /** The native method, e.g. `findAllEvents`. */
+  method: string;
+  /** When the call ended, in epoch milliseconds. */
+  endedAt: number;
+  /** Time from the call being queued to its end. */
+  ms: number;
+  /** Where the time went. `childrenMs` is loading attendees, reminders and calendars, including their queries. `serializeMs` is the rest, mostly cursor iteration and serialization. */
+  stages: { queuedMs: number; queryMs: number; childrenMs: number; serializeMs: number };
+  /** The first 32 provider queries of the call. */
+  queries: Array<{
+    uri: string;
+    projection: string[];
+    selection: string | null;
+    selectionArgs: string[];
+    rows: number;
+    ms: number;
+  }>;
+  /** Every provider query of the call, including the ones not in `queries`. */
+  queryCount: number;
+  rows: number;
+  bytes: number;
+  failed: boolean;
+}
+
+export type SaveEventResult =
+  | {
+      /** The saved event's ID. */
+      id: string;
+    }
+  | {
+      /** Why the event could not be saved. */
+      error: string;
+    };
+
 export interface CalendarOptions {
   /** The calendar title */
   title: string;
@@ -186,19 +416,144 @@ export default class ReactNativeCalendarEvents {
   /**
    * Find calendar event by id.
    * @param id - Event ID
+   * @param [options] - ANDROID ONLY - Read options.
    */
-  static findEventById(id: string): Promise<CalendarEventReadable | null>;
+  static findEventById(
+    id: string,
+    options?: ReadOptions
+  ): Promise<CalendarEventReadable | null>;
+  /**
+   * ANDROID ONLY - Find several calendar events by id at once.
+   * @param ids - Event IDs
+   * @param [options] - Read options.
+   * @returns - Promise resolving to every requested id, mapped to its event or to null if it was not found.
+   */
+  static findEventsByIds(
+    ids: string[],
+    options?: ReadOptions
+  ): Promise<{ [id: string]: CalendarEventReadable | null }>;
+  /**
+   * ANDROID ONLY - Find one instance of an event by its instance id, as returned by `fetchAllEvents`.
+   * @param instanceId - Instance ID
+   * @param [options] - Read options, and what is known about the instance to narrow the search.
+   */
+  static findEventInstanceById(
+    instanceId: string,
+    options?: InstanceReadOptions
+  ): Promise<CalendarEventReadable | null>;
   /**
    * Fetch all calendar events.
    * @param startDate - Date string in ISO format
    * @param endDate - Date string in ISO format
    * @param [calendarIds] - List of calendar id strings to specify calendar events. Defaults to all calendars if empty.
+   * @param [options] - ANDROID ONLY - Read options.
    */
   static fetchAllEvents(
     startDate: ISODateString,
     endDate: ISODateString,
-    calendarIds?: string[]
+    calendarIds: string[],
+    options: ReadOptions & { format: "columnar" }
+  ): Promise<ColumnarEvents>;
+  static fetchAllEvents(
+    startDate: ISODateString,
+    endDate: ISODateString,
+    calendarIds: string[],
+    options: ReadOptions & { format: "binary" }
+  ): Promise<ArrayBuffer>;
+  static fetchAllEvents(
+    startDate: ISODateString,
+    endDate: ISODateString,
+    calendarIds: string[],
+    options: ReadOptions & { since: string | { [instanceKey: string]: string } }
+  ): Promise<EventsSince>;
+  static fetchAllEvents(
+    startDate: ISODateString,
+    endDate: ISODateString,
+    calendarIds?: string[],
+    options?: ReadOptions
   ): Promise<CalendarEventReadable[]>;
+  /**
+   * ANDROID ONLY - Decode a `fetchAllEvents` result read with `format: 'binary'`.
+   * @param buffer - The ArrayBuffer `fetchAllEvents` resolved to
+   */
+  static decodeEvents(buffer: ArrayBuffer): DecodedEvents;
+  /**
+   * ANDROID ONLY - The `since` option for events read with it: the `contentHash` of every instance, keyed by event id and start date.
+   */
+  static eventHashes(events: CalendarEventReadable[]): { [instanceKey: string]: string };
+  /**
+   * ANDROID ONLY - Fetch calendar events in chunks, handing each chunk to `onEvents` as soon as it is read.
+   * @param startDate - Date string in ISO format
+   * @param endDate - Date string in ISO format
+   * @param calendarIds - List of calendar id strings to specify calendar events. Defaults to all calendars if empty.
+   * @param onEvents - Called once per chunk, in order.
+   * @param [options] - Read options and the number of events per chunk (200 by default).
+   * @returns - Promise resolving once every chunk was delivered.
+   */
+  static streamAllEvents(
+    startDate: ISODateString,
+    endDate: ISODateString,
+    calendarIds: string[],
+    onEvents: (events: CalendarEventReadable[], index: number) => void,
+    options?: StreamOptions
+  ): Promise<{ count: number }>;
+  /**
+   * ANDROID ONLY - Find the existing instances each candidate event would overlap, for example before `saveEvents`.
+   * @param candidates - Events with `startDate`, `endDate` and, when they update an existing event, its `id`.
+   * @param calendarIds - List of calendar id strings to check against. Defaults to all calendars if empty.
+   * @param [options] - What counts as busy and the date format of the result.
+   * @returns - Promise resolving to one array of conflicts per candidate, in order, each sorted by start.
+   */
+  static findConflicts(
+    candidates: Array<Pick<CalendarEventWritable, "id" | "startDate" | "endDate">>,
+    calendarIds?: string[],
+    options?: ConflictOptions
+  ): Promise<Conflict[][]>;
+  /**
+   * ANDROID ONLY - Merge the busy time of several calendars and find the free slots between it.
+   * @param startDate - Date string in ISO format
+   * @param endDate - Date string in ISO format
+   * @param calendarIds - List of calendar id strings. Defaults to all calendars if empty.
+   * @param [options] - What counts as busy and the shortest free slot.
+   */
+  static findFreeBusy(
+    startDate: ISODateString,
+    endDate: ISODateString,
+    calendarIds?: string[],
+    options?: FreeBusyOptions
+  ): Promise<FreeBusy>;
+  /**
+   * ANDROID ONLY - Find the events whose title, description, location or attendee names and emails contain every word of the query, best match first.
+   * @param query - Free text, every word is matched as a prefix.
+   * @param startDate - Date string in ISO format
+   * @param endDate - Date string in ISO format
+   * @param calendarIds - List of calendar id strings to search. Defaults to all calendars if empty.
+   * @param [options] - Read options and the maximum number of events.
+   * @returns - Promise resolving to the matching events. Recurring events are returned once, as the series.
+   */
+  static searchEvents(
+    query: string,
+    startDate: ISODateString,
+    endDate: ISODateString,
+    calendarIds?: string[],
+    options?: SearchOptions
+  ): Promise<CalendarEventReadable[]>;
+  /**
+   * ANDROID ONLY - Fetch calendar events and keep them up to date: whenever the calendar provider changes, `onChange` receives only the instances that were added, changed or removed.
+   * @param startDate - Date string in ISO format
+   * @param endDate - Date string in ISO format
+   * @param calendarIds - List of calendar id strings to specify calendar events. Defaults to all calendars if empty.
+   * @param onChange - Called after every burst of provider changes that touched the range.
+   * @param [options] - Read options, `fields` and `dateFormat` also apply to the updates.
+   * @returns - Promise resolving to the current events and a way to unsubscribe.
+   */
+  static subscribe(
+    startDate: ISODateString,
+    endDate: ISODateString,
+    calendarIds: string[],
+    onChange: (changes: EventChanges) => void,
+    options?: ReadOptions
+  ): Promise<EventSubscription>;
   /**
    * Creates or updates a calendar event. To update an event, the event id must be defined.
    * @param title - The title of the event
@@ -212,10 +567,16 @@ export default class ReactNativeCalendarEvents {
     options?: Options
   ): Promise<string>;
 
+  /**
+   * ANDROID ONLY - Creates or updates several calendar events in as few provider transactions as possible.
+   * @param detailsList - Event details, with `title` set on each entry
+   * @param [options] - Options applied to every saved event.
+   * @returns - Promise resolving to one result per entry, in the same order.
+   */
   static saveEvents(
     detailsList: CalendarEventWritable[],
     options?: Options
-  ): Promise<string>
+  ): Promise<SaveEventResult[]>;
 
   /**
    * Removes calendar event.
@@ -225,4 +586,27 @@ export default class ReactNativeCalendarEvents {
    */
   static removeEvent(id: string, options?: Options): Promise<boolean>;
   static removeEvents(ids: string[], options?: Options): Promise<boolean[]>;
+
+  /**
+   * ANDROID ONLY - Stops a read started with this `requestId` option. Its promise rejects with code `E_CANCELLED`.
+   * @returns - Promise resolving to false if no read with that id was queued or running.
+   */
+  static cancel(requestId: string): Promise<boolean>;
+
+  /** ANDROID ONLY - Counters of the in-memory calendar cache. */
+  static getCalendarCacheStats(): Promise<CalendarCacheStats>;
+
+  /** ANDROID ONLY - Latency, query, row, payload and error counts per native method. */
+  static getMetrics(): Promise<CalendarMetrics>;
+  /** ANDROID ONLY - Clears the counters `getMetrics` returns. */
+  static resetMetrics(): Promise<void>;
+  /**
+   * ANDROID ONLY - Record every call that takes at least `ms`, keeping the last 50.
+   * @param ms - The threshold in milliseconds, or a negative number to stop recording. Recording is off by default.
+   */
+  static setSlowQueryThreshold(ms: number): Promise<void>;
+  /** ANDROID ONLY - The recorded slow calls, oldest first. */
+  static getSlowQueries(): Promise<SlowQuery[]>;
+  /** ANDROID ONLY - Drops the recorded slow calls. */
+  static clearSlowQueries(): Promise<void>;
 }